@@ -17,6 +17,7 @@ plugins {
   alias(libs.plugins.spring.dependencyManagement)
   alias(libs.plugins.spring.boot)
   alias(libs.plugins.jib)
+  alias(libs.plugins.jmh)
   alias(libs.plugins.graalvmNative)
 }
 
@@ -126,6 +127,7 @@ dependencies {
     exclude(group = "org.junit.vintage", module = "junit-vintage-engine")
   }
   developmentOnly("org.springframework.boot:spring-boot-devtools")
+  jmhImplementation("org.springframework:spring-test")
 }
 
 tasks {
@@ -0,0 +1,165 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.controller;
+
+import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.configuration.properties.ClusterConfiguration;
+import com.seiama.javaducks.configuration.properties.ServingConfiguration;
+import com.seiama.javaducks.configuration.properties.UpstreamConfiguration;
+import com.seiama.javaducks.service.EndpointService;
+import com.seiama.javaducks.service.JavadocService;
+import com.seiama.javaducks.service.javadoc.InjectionBulkhead;
+import com.seiama.javaducks.service.javadoc.JavadocInjector;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.servlet.context.AnnotationConfigServletWebApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// a page request dispatched by the DispatcherServlet, once through JavadocController and once
+// through JavadocHandlerMapping. both serve the same file, the difference is the routing.
+// run with -prof gc to see the allocation rate
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class JavadocRoutingBenchmark {
+  private static final String PAGE = "org/bukkit/entity/Player.html";
+  private static final String URI_PATH = "/paper/1.21.4/" + PAGE;
+  private Path storage;
+  private AnnotationConfigServletWebApplicationContext controllerContext;
+  private AnnotationConfigServletWebApplicationContext fastPathContext;
+  private MockMvc controller;
+  private MockMvc fastPath;
+
+  @Setup
+  public void setup() throws Exception {
+    this.storage = Files.createTempDirectory("javaducks-routing");
+    final Path jar = Files.createDirectories(this.storage.resolve("paper")).resolve("1.21.4.jar");
+    try (final ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      output.putNextEntry(new ZipEntry(PAGE));
+      output.write("<html><head><title>Player</title></head><body></body></html>".getBytes(StandardCharsets.UTF_8));
+    }
+    this.controllerContext = this.context(false);
+    this.fastPathContext = this.context(true);
+    this.controller = MockMvcBuilders.webAppContextSetup(this.controllerContext).build();
+    this.fastPath = MockMvcBuilders.webAppContextSetup(this.fastPathContext).build();
+    // a 404 from either side would make the comparison meaningless
+    for (final MockMvc mvc : List.of(this.controller, this.fastPath)) {
+      final int status = mvc.perform(get(URI_PATH)).andReturn().getResponse().getStatus();
+      if (status != 200) {
+        throw new IllegalStateException("Expected the page to be served, got " + status);
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    this.controllerContext.close();
+    this.fastPathContext.close();
+    FileSystemUtils.deleteRecursively(this.storage);
+  }
+
+  @Benchmark
+  public MvcResult controller() throws Exception {
+    return this.controller.perform(get(URI_PATH)).andReturn();
+  }
+
+  @Benchmark
+  public MvcResult fastPath() throws Exception {
+    return this.fastPath.perform(get(URI_PATH)).andReturn();
+  }
+
+  // the web mvc infrastructure with the javadoc routes, and no injections so only routing differs
+  private AnnotationConfigServletWebApplicationContext context(final boolean fastPath) {
+    final AppConfiguration configuration = new AppConfiguration(
+      URI.create("https://example.com"),
+      URI.create("https://example.com"),
+      this.storage,
+      List.of(
+        endpoint("paper", "1.8.8", "1.12.2", "1.16.5", "1.19.4", "1.20.4", "1.20.6", "1.21", "1.21.1", "1.21.3", "1.21.4"),
+        endpoint("velocity", "1.0.0", "1.1.0", "3.0.0", "3.4.0-SNAPSHOT"),
+        endpoint("waterfall", "1.19", "1.20", "1.21")
+      ),
+      List.of()
+    );
+    final ServingConfiguration serving = new ServingConfiguration(false, false, false, false, fastPath, new ServingConfiguration.InjectionBulkhead(false, 16, 2, 64, Duration.ofMillis(250), Duration.ofSeconds(5), ServingConfiguration.InjectionBulkhead.Overload.REJECT));
+    final EndpointService endpoints = new EndpointService(configuration);
+    final JavadocService service = new JavadocService(configuration, endpoints, ClusterConfiguration.STANDALONE, UpstreamConfiguration.DEFAULT, RestClient.builder(), event -> {});
+    service.warm(new JavadocKey("paper", "1.21.4"));
+    final JavadocInjector injector = new JavadocInjector(List.of(), new InjectionBulkhead(serving, new SimpleMeterRegistry()));
+    final JavadocPreloads preloads = new JavadocPreloads(service, serving);
+
+    final AnnotationConfigServletWebApplicationContext context = new AnnotationConfigServletWebApplicationContext();
+    context.setServletContext(new MockServletContext());
+    context.register(WebMvc.class);
+    context.registerBean(JavadocController.class, () -> new JavadocController(service, injector, configuration, endpoints, serving, preloads));
+    context.registerBean(JavadocHandlerMapping.class, () -> new JavadocHandlerMapping(endpoints, serving, service, injector, preloads));
+    context.refresh();
+    return context;
+  }
+
+  private static AppConfiguration.EndpointConfiguration endpoint(final String name, final String... versions) {
+    return new AppConfiguration.EndpointConfiguration(name, Arrays.stream(versions)
+      .map(version -> new AppConfiguration.EndpointConfiguration.Version(version, null, URI.create("https://repo.test/"), "group", "artifact", version, AppConfiguration.EndpointConfiguration.Version.Type.MAVEN))
+      .toList());
+  }
+
+  @Configuration
+  @EnableWebMvc
+  static class WebMvc {
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc;
+
+import com.seiama.javaducks.configuration.properties.ServingConfiguration;
+import com.seiama.javaducks.service.javadoc.injection.FaviconInjection;
+import com.seiama.javaducks.service.javadoc.injection.Injection;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// building an injected page in memory versus streaming it to the response.
+// run with -prof gc, the streamed variant shouldn't allocate in proportion to the page size
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class InjectionBenchmark {
+  private static final JavadocKey KEY = new JavadocKey("paper", "1.21");
+  private final List<Injection> injections = List.of(new FaviconInjection());
+  private final JavadocInjector injector = new JavadocInjector(this.injections, new InjectionBulkhead(
+    new ServingConfiguration.InjectionBulkhead(false, 16, 2, 64, Duration.ofMillis(250), Duration.ofSeconds(5), ServingConfiguration.InjectionBulkhead.Overload.REJECT),
+    null
+  ));
+  private Path page;
+
+  @Setup
+  public void setup() throws IOException {
+    this.page = Files.createTempFile("javaducks-page", ".html");
+    final StringBuilder html = new StringBuilder("<html><head><title>Material</title>\n</head><body>\n");
+    for (int i = 0; i < 20_000; i++) {
+      html.append("<tr><td><a href=\"#CONSTANT_").append(i).append("\">CONSTANT_").append(i).append("</a></td><td>Some description</td></tr>\n");
+    }
+    Files.writeString(this.page, html.append("</body></html>"));
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(this.page);
+  }
+
+  @Benchmark
+  public Object buffered() {
+    return this.injector.runInjections(this.page, KEY);
+  }
+
+  @Benchmark
+  public void streamed() throws IOException {
+    this.injector.transferInjected(this.page, KEY, this.injections, OutputStream.nullOutputStream());
+  }
+}
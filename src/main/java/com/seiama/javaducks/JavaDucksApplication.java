@@ -24,6 +24,14 @@
 package com.seiama.javaducks;
 
 import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.configuration.properties.ClusterConfiguration;
+import com.seiama.javaducks.configuration.properties.RateLimitConfiguration;
+import com.seiama.javaducks.configuration.properties.ReloadConfiguration;
+import com.seiama.javaducks.configuration.properties.SearchConfiguration;
+import com.seiama.javaducks.configuration.properties.ServingConfiguration;
+import com.seiama.javaducks.configuration.properties.SitemapConfiguration;
+import com.seiama.javaducks.configuration.properties.UpstreamConfiguration;
+import com.seiama.javaducks.configuration.properties.WebhookConfiguration;
 import org.jspecify.annotations.NullMarked;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -31,7 +39,15 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableConfigurationProperties({
-  AppConfiguration.class
+  AppConfiguration.class,
+  ClusterConfiguration.class,
+  RateLimitConfiguration.class,
+  ReloadConfiguration.class,
+  SearchConfiguration.class,
+  ServingConfiguration.class,
+  SitemapConfiguration.class,
+  UpstreamConfiguration.class,
+  WebhookConfiguration.class
 })
 @EnableScheduling
 @NullMarked
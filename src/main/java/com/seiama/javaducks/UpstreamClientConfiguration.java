@@ -0,0 +1,67 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks;
+
+import com.seiama.javaducks.configuration.properties.UpstreamConfiguration;
+import com.seiama.javaducks.util.http.IdleTimeoutHttpClient;
+import com.seiama.javaducks.util.http.UpstreamInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import org.jspecify.annotations.NullMarked;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+// one client for the maven repositories: the jdk client keeps a keep-alive connection pool per
+// host and negotiates http/2 where the repository offers it
+@Configuration
+@NullMarked
+public class UpstreamClientConfiguration {
+  private static final Logger LOGGER = LoggerFactory.getLogger(UpstreamClientConfiguration.class);
+
+  @Bean
+  public RestClientCustomizer upstreamClientCustomizer(final UpstreamConfiguration upstream, final MeterRegistry registry) {
+    final UpstreamConfiguration.Retry retry = upstream.retry();
+    // until a stall is noticed, every attempt may spend the read timeout waiting for the headers
+    // and again on the last read of the body before it stops moving
+    final Duration worstCase = upstream.connectTimeout().plus(upstream.readTimeout().multipliedBy(2)).multipliedBy(retry.attempts()).plus(retry.maxBackoff().multipliedBy(retry.attempts() - 1L));
+    if (worstCase.compareTo(upstream.schedule().minInterval()) > 0) {
+      LOGGER.warn("Giving up on a stalled download may take {} with these timeouts, longer than the shortest refresh interval of {}; downloads that keep moving aren't cut off", worstCase, upstream.schedule().minInterval());
+    }
+    final HttpClient client = HttpClient.newBuilder()
+      .version(upstream.http2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+      .connectTimeout(upstream.connectTimeout())
+      .followRedirects(HttpClient.Redirect.NORMAL)
+      .build();
+    // no read timeout on the factory, it would bound the whole download
+    final JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(new IdleTimeoutHttpClient(client, upstream.readTimeout()));
+    return builder -> builder
+      .requestFactory(factory)
+      .requestInterceptor(new UpstreamInterceptor(registry));
+  }
+}
@@ -44,13 +44,21 @@ public record AppConfiguration(
   List<MavenHashType> hashTypes
 ) {
 
-  public EndpointConfiguration.@Nullable Version endpoint(final String endpointName, final String versionName) {
+  public @Nullable EndpointConfiguration endpoint(final String endpointName) {
     for (final EndpointConfiguration endpoint : this.endpoints) {
       if (endpoint.name().equals(endpointName)) {
-        for (final EndpointConfiguration.Version version : endpoint.versions()) {
-          if (version.name().equals(versionName)) {
-            return version;
-          }
+        return endpoint;
+      }
+    }
+    return null;
+  }
+
+  public EndpointConfiguration.@Nullable Version endpoint(final String endpointName, final String versionName) {
+    final EndpointConfiguration endpoint = this.endpoint(endpointName);
+    if (endpoint != null) {
+      for (final EndpointConfiguration.Version version : endpoint.versions()) {
+        if (version.name().equals(versionName)) {
+          return version;
         }
       }
     }
@@ -122,6 +130,21 @@ public record AppConfiguration(
         return Objects.requireNonNull(this.version, "version").endsWith("+");
       }
 
+      // whether a published group:artifact:version is, or may resolve to, this version
+      public boolean publishes(final String group, final String artifact, final @Nullable String version) {
+        if (this.type != Type.MAVEN || !group.equals(this.group) || !artifact.equals(this.artifact)) {
+          return false;
+        }
+        if (version == null || version.equals(this.version)) {
+          return true;
+        }
+        if (this.isSnapshot()) {
+          // timestamped snapshots replace the -SNAPSHOT suffix
+          return version.startsWith(this.version.substring(0, this.version.length() - "SNAPSHOT".length()));
+        }
+        return this.isChangingRelease() && version.startsWith(this.changingReleasePrefix());
+      }
+
       public String changingReleasePrefix() {
         final String resolvedVersion = Objects.requireNonNull(this.version, "version");
         return resolvedVersion.substring(0, resolvedVersion.length() - 1);
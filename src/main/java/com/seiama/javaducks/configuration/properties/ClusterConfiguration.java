@@ -0,0 +1,73 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.configuration.properties;
+
+import java.net.URI;
+import java.util.List;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "app.cluster")
+@NullMarked
+public record ClusterConfiguration(
+  @Nullable String token,
+  @DefaultValue
+  List<URI> peers,
+  @DefaultValue("false")
+  boolean sharedStorage,
+  @DefaultValue("ALL")
+  Role role
+) {
+  public static final ClusterConfiguration STANDALONE = new ClusterConfiguration(null, List.of(), false, Role.ALL);
+
+  // split roles only make sense on storage shared between them
+  public boolean storageShared() {
+    return this.sharedStorage || this.role != Role.ALL;
+  }
+
+  // the internal endpoints are only exposed with a shared token
+  public boolean internalEnabled() {
+    return this.token != null && !this.token.isEmpty();
+  }
+
+  @NullMarked
+  public enum Role {
+    // refreshes and serves
+    ALL,
+    // downloads, verifies and pre-processes into the storage without serving from memory
+    INGEST,
+    // serves what the ingest nodes prepared and never calls out
+    SERVE;
+
+    public boolean ingests() {
+      return this != SERVE;
+    }
+
+    public boolean serves() {
+      return this != INGEST;
+    }
+  }
+}
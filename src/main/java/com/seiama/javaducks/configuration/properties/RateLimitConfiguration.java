@@ -0,0 +1,69 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.configuration.properties;
+
+import java.util.Map;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "app.rate-limit")
+@NullMarked
+public record RateLimitConfiguration(
+  @DefaultValue("false")
+  boolean enabled,
+  @DefaultValue("CLIENT_IP")
+  ClientKey key,
+  @DefaultValue
+  Budget defaultBudget,
+  @Nullable Budget outdated,
+  @DefaultValue
+  Map<String, Budget> projects,
+  @DefaultValue("100000")
+  int maxClients
+) {
+  public enum ClientKey {
+    CLIENT_IP,
+    USER_AGENT
+  }
+
+  @NullMarked
+  public record Budget(
+    @DefaultValue("20")
+    double perSecond,
+    @DefaultValue("100")
+    int burst
+  ) {
+    public Budget {
+      // the interval between requests is derived from the rate, zero would never allow one
+      if (!(perSecond > 0)) {
+        throw new IllegalArgumentException("perSecond must be positive, was " + perSecond);
+      }
+      if (burst < 0) {
+        throw new IllegalArgumentException("burst must not be negative, was " + burst);
+      }
+    }
+  }
+}
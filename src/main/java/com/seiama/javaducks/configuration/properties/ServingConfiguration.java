@@ -0,0 +1,71 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.configuration.properties;
+
+import java.time.Duration;
+import org.jspecify.annotations.NullMarked;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "app.serving")
+@NullMarked
+public record ServingConfiguration(
+  @DefaultValue("false")
+  boolean hashedAssets,
+  @DefaultValue("true")
+  boolean preload,
+  @DefaultValue("false")
+  boolean earlyHints,
+  @DefaultValue("false")
+  boolean serveLatest,
+  @DefaultValue("false")
+  boolean fastPath,
+  @DefaultValue
+  InjectionBulkhead injectionBulkhead
+) {
+  @NullMarked
+  public record InjectionBulkhead(
+    @DefaultValue("false")
+    boolean enabled,
+    @DefaultValue("16")
+    int initialLimit,
+    @DefaultValue("2")
+    int minLimit,
+    @DefaultValue("64")
+    int maxLimit,
+    @DefaultValue("250ms")
+    Duration targetLatency,
+    @DefaultValue("5s")
+    Duration retryAfter,
+    @DefaultValue("REJECT")
+    Overload overload
+  ) {
+    public enum Overload {
+      // 503 with Retry-After
+      REJECT,
+      // serve the page without injections
+      PASSTHROUGH
+    }
+  }
+}
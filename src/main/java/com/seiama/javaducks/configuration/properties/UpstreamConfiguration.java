@@ -0,0 +1,103 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.configuration.properties;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import org.jspecify.annotations.NullMarked;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "app.upstream")
+@NullMarked
+public record UpstreamConfiguration(
+  @DefaultValue("5s")
+  Duration connectTimeout,
+  // for the response headers and then between two reads of the body, a slow download is fine as long as it keeps moving
+  @DefaultValue("60s")
+  Duration readTimeout,
+  @DefaultValue("true")
+  boolean http2,
+  @DefaultValue
+  Retry retry,
+  // like maven's mirrorOf, applies to every version using the repository
+  @DefaultValue
+  List<Mirror> mirrors,
+  @DefaultValue
+  Hedging hedging,
+  @DefaultValue
+  Schedule schedule
+) {
+  public static final UpstreamConfiguration DEFAULT = new UpstreamConfiguration(Duration.ofSeconds(5), Duration.ofSeconds(60), true, new Retry(4, Duration.ofSeconds(1), Duration.ofSeconds(15)), List.of(), new Hedging(false, 0.9, Duration.ofMillis(50)), new Schedule(Duration.ofMinutes(5), Duration.ofMinutes(15), Duration.ofHours(6), 0.1));
+
+  @NullMarked
+  public record Mirror(
+    URI repository,
+    List<URI> urls
+  ) {
+  }
+
+  // how often each version is checked for a new jar, adapted to how often it has been changing
+  @NullMarked
+  public record Schedule(
+    @DefaultValue("5m")
+    Duration minInterval,
+    @DefaultValue("15m")
+    Duration initialInterval,
+    @DefaultValue("6h")
+    Duration maxInterval,
+    @DefaultValue("0.1")
+    double jitter
+  ) {
+  }
+
+  // asks the next mirror for metadata and hashes too when the first is slower than usual
+  @NullMarked
+  public record Hedging(
+    @DefaultValue("false")
+    boolean enabled,
+    @DefaultValue("0.9")
+    double percentile,
+    @DefaultValue("50ms")
+    Duration minDelay
+  ) {
+  }
+
+  @NullMarked
+  public record Retry(
+    @DefaultValue("4")
+    int attempts,
+    @DefaultValue("1s")
+    Duration initialBackoff,
+    @DefaultValue("15s")
+    Duration maxBackoff
+  ) {
+    // doubles with every attempt, but never waits longer than maxBackoff
+    public Duration backoff(final int attempt) {
+      final Duration backoff = this.initialBackoff.multipliedBy(1L << Math.min(attempt, 20));
+      return backoff.compareTo(this.maxBackoff) > 0 ? this.maxBackoff : backoff;
+    }
+  }
+}
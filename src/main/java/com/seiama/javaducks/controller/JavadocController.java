@@ -24,15 +24,20 @@
 package com.seiama.javaducks.controller;
 
 import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.configuration.properties.ServingConfiguration;
+import com.seiama.javaducks.service.EndpointService;
 import com.seiama.javaducks.service.JavadocService;
 import com.seiama.javaducks.service.javadoc.JavadocInjector;
 import com.seiama.javaducks.service.javadoc.JavadocKey;
+import com.seiama.javaducks.service.javadoc.injection.HashedAssetInjection;
+import com.seiama.javaducks.service.javadoc.injection.Injection;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
-import java.util.Map;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
@@ -42,6 +47,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.CacheControl;
 import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -49,6 +55,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.HandlerMapping;
 
 import static org.springframework.http.ResponseEntity.notFound;
@@ -60,26 +67,26 @@ import static org.springframework.http.ResponseEntity.status;
 public class JavadocController {
   private static final Logger LOGGER = LoggerFactory.getLogger(JavadocController.class);
   // https://regex101.com/r/fyzJ7g/1
-  private static final Pattern STATICS_PATTERN = Pattern.compile("^(?!.*search-index).*\\.(js|png|css|html)$");
-  private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofMinutes(10));
-  private static final CacheControl STATICS_CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(7));
+  static final Pattern STATICS_PATTERN = Pattern.compile("^(?!.*search-index).*\\.(js|png|css|html)$");
+  static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofMinutes(10));
+  static final CacheControl STATICS_CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(7));
+  private static final CacheControl HASHED_CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
   private static final ContentDisposition CONTENT_DISPOSITION = ContentDisposition.inline().build();
-  private static final Map<String, MediaType> MEDIATYPES = Map.of(
-    ".css", MediaType.parseMediaType("text/css"),
-    ".js", MediaType.parseMediaType("application/javascript"),
-    ".zip", MediaType.parseMediaType("application/zip"),
-    ".html", MediaType.parseMediaType("text/html"),
-    ".svg", MediaType.parseMediaType("image/svg+xml")
-  );
   private final JavadocService service;
   private final JavadocInjector injector;
   private final AppConfiguration configuration;
+  private final EndpointService endpoints;
+  private final ServingConfiguration serving;
+  private final JavadocPreloads preloads;
 
   @Autowired
-  public JavadocController(final JavadocService service, final JavadocInjector injector, final AppConfiguration configuration) {
+  public JavadocController(final JavadocService service, final JavadocInjector injector, final AppConfiguration configuration, final EndpointService endpoints, final ServingConfiguration serving, final JavadocPreloads preloads) {
     this.service = service;
     this.injector = injector;
     this.configuration = configuration;
+    this.endpoints = endpoints;
+    this.serving = serving;
+    this.preloads = preloads;
   }
 
   @GetMapping("/{project:[a-z]+}/{version:[0-9.]+-?(?:pre|SNAPSHOT)?(?:[0-9.]+)?}")
@@ -98,6 +105,7 @@ public class JavadocController {
   @ResponseBody
   public ResponseEntity<?> serveJavadocs(
     final HttpServletRequest request,
+    final HttpServletResponse response,
     @PathVariable final String project,
     @PathVariable final String version
   ) {
@@ -106,7 +114,16 @@ public class JavadocController {
     if (path.equals("/")) {
       path = "index.html";
     }
-    final JavadocKey key = new JavadocKey(project, version);
+    return this.serve(request, response, new JavadocKey(project, version), path, headers -> { });
+  }
+
+  private ResponseEntity<?> serve(
+    final HttpServletRequest request,
+    final HttpServletResponse response,
+    final JavadocKey key,
+    final String path,
+    final Consumer<HttpHeaders> extraHeaders
+  ) {
     final JavadocService.@Nullable Result result = this.service.contentsFor(key, path);
     if (result != null) {
       final Path file = result.file();
@@ -117,17 +134,18 @@ public class JavadocController {
           .build();
       } else if (file != null) {
         if (Files.isRegularFile(file)) {
+          if (file.toString().endsWith(Injection.HTML)) {
+            this.preloads.send(request, response, key);
+          }
           return ok()
             .cacheControl(STATICS_PATTERN.matcher(path).find() ? STATICS_CACHE_CONTROL : CACHE_CONTROL)
+            .headers(extraHeaders)
             .headers(headers -> {
               headers.setContentDisposition(CONTENT_DISPOSITION);
               headers.set("X-JavaDucks", "Quack");
-              final String name = file.getFileName().toString();
-              for (final Map.Entry<String, MediaType> entry : MEDIATYPES.entrySet()) {
-                if (name.endsWith(entry.getKey())) {
-                  headers.setContentType(entry.getValue());
-                  break;
-                }
+              final MediaType mediaType = MediaTypes.forName(file.getFileName().toString());
+              if (mediaType != null) {
+                headers.setContentType(mediaType);
               }
             })
             .body(this.injector.runInjections(file, key));
@@ -139,6 +157,30 @@ public class JavadocController {
       .build();
   }
 
+  @GetMapping(HashedAssetInjection.ASSETS + "{name:[0-9a-f]+\\.[a-z0-9]+}")
+  @ResponseBody
+  public ResponseEntity<?> serveHashedAsset(@PathVariable final String name) {
+    final int dot = name.indexOf('.');
+    final Path asset = this.service.assetFor(name.substring(0, dot), name.substring(dot));
+    if (asset == null) {
+      return notFound()
+        .cacheControl(CacheControl.noCache())
+        .build();
+    }
+    // the name is the content hash, it never changes
+    return ok()
+      .cacheControl(HASHED_CACHE_CONTROL)
+      .eTag(name.substring(0, dot))
+      .headers(headers -> {
+        headers.set("X-JavaDucks", "Quack");
+        final MediaType mediaType = MediaTypes.forName(name);
+        if (mediaType != null) {
+          headers.setContentType(mediaType);
+        }
+      })
+      .body(new FileSystemResource(asset));
+  }
+
   @GetMapping("/{project:[a-z]+}/favicon.ico")
   @ResponseBody
   public ResponseEntity<?> serveFavicon(@PathVariable final String project) {
@@ -158,23 +200,29 @@ public class JavadocController {
 
   @GetMapping("/{project:[a-z]+}")
   @ResponseBody
-  public ResponseEntity<?> redirectToPathWithTrailingSlashServeLatestJavadoc(
+  public @Nullable ResponseEntity<?> redirectToPathWithTrailingSlashServeLatestJavadoc(
     final HttpServletRequest request,
+    final HttpServletResponse response,
     @PathVariable final String project
   ) {
-    return this.serveLatestJavadoc(request, project);
+    return this.serveLatestJavadoc(request, response, project);
   }
 
   @GetMapping("/{project:[a-z]+}/**")
   @ResponseBody
-  public ResponseEntity<?> serveLatestJavadoc(
+  public @Nullable ResponseEntity<?> serveLatestJavadoc(
     final HttpServletRequest request,
+    final HttpServletResponse response,
     @PathVariable final String project
   ) {
     final String path = request.getRequestURI().substring(request.getContextPath().length());
     String remainingPath = path.substring(project.length() + 1);
     final JavadocKey key = new JavadocKey(project, this.latestVersion(new JavadocKey(project, "")));
 
+    if (this.serving.serveLatest()) {
+      return this.serveLatestInPlace(request, response, key, remainingPath);
+    }
+
     if (remainingPath.startsWith("/")) {
       remainingPath = remainingPath.substring(1);
     }
@@ -184,8 +232,41 @@ public class JavadocController {
       .build();
   }
 
+  // serves the latest version under the alias url, saving the redirect round trip
+  private @Nullable ResponseEntity<?> serveLatestInPlace(
+    final HttpServletRequest request,
+    final HttpServletResponse response,
+    final JavadocKey key,
+    final String remainingPath
+  ) {
+    if (remainingPath.isEmpty()) {
+      // relative links in the index only resolve below the trailing slash
+      return status(HttpStatus.FOUND)
+        .location(URI.create(request.getRequestURI() + "/"))
+        .build();
+    }
+    final String path = remainingPath.equals("/") ? "index.html" : remainingPath.substring(1);
+    final long lastModified = this.service.lastModified(key);
+    final String eTag = "W/\"%s-%x\"".formatted(key.version(), lastModified);
+    if (lastModified >= 0 && new ServletWebRequest(request, response).checkNotModified(eTag, lastModified)) {
+      // the 304 has already been written
+      return null;
+    }
+    final String location = "/%s/%s/%s".formatted(key.project(), key.version(), path);
+    return this.serve(request, response, key, path, headers -> {
+      // what the alias points at changes with every newer version, clients revalidate with the validators below
+      headers.setCacheControl(CacheControl.noCache());
+      headers.set(HttpHeaders.CONTENT_LOCATION, location);
+      headers.add(HttpHeaders.LINK, "<%s>; rel=\"canonical\"".formatted(this.configuration.hostName().resolve(location)));
+      if (lastModified >= 0) {
+        headers.setETag(eTag);
+        headers.setLastModified(lastModified);
+      }
+    });
+  }
+
   private String latestVersion(final JavadocKey key) {
-    return this.configuration.endpoints().stream()
+    return this.endpoints.endpoints().stream()
       .filter(e -> e.name().equals(key.project()))
       .findFirst()
       .map(e -> e.versions().get(e.versions().size() - 1).name())
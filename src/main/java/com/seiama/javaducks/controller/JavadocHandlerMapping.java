@@ -0,0 +1,204 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.controller;
+
+import com.seiama.javaducks.configuration.properties.ServingConfiguration;
+import com.seiama.javaducks.service.EndpointService;
+import com.seiama.javaducks.service.JavadocService;
+import com.seiama.javaducks.service.javadoc.EndpointsChangedEvent;
+import com.seiama.javaducks.service.javadoc.JavadocInjector;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import com.seiama.javaducks.service.javadoc.injection.Injection;
+import com.seiama.javaducks.util.exception.OverloadedException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.servlet.handler.AbstractHandlerMapping;
+
+// serves /<project>/<version>/** of configured versions ahead of the annotated controller,
+// parsing the uri in a single pass instead of going through pattern matching. anything it
+// doesn't recognise falls through to JavadocController, and so do range and conditional
+// requests, which only the controller's response handling answers
+@Component
+@NullMarked
+public class JavadocHandlerMapping extends AbstractHandlerMapping {
+  private static final String INDEX = "index.html";
+  private static final String PAGE_CACHE_CONTROL = JavadocController.CACHE_CONTROL.getHeaderValue();
+  private static final String STATICS_CACHE_CONTROL = JavadocController.STATICS_CACHE_CONTROL.getHeaderValue();
+  private static final String NO_CACHE = CacheControl.noCache().getHeaderValue();
+  // https://tomcat.apache.org/tomcat-10.1-doc/aio.html#Asynchronous_writes
+  private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+  private static final List<String> CONTROLLER_HEADERS = List.of(
+    HttpHeaders.RANGE,
+    HttpHeaders.IF_MATCH,
+    HttpHeaders.IF_NONE_MATCH,
+    HttpHeaders.IF_MODIFIED_SINCE,
+    HttpHeaders.IF_UNMODIFIED_SINCE,
+    HttpHeaders.IF_RANGE
+  );
+  private static final String INJECTED_CONTENT_TYPE = new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8).toString();
+  private final ServingConfiguration serving;
+  private final JavadocService service;
+  private final JavadocInjector injector;
+  private final JavadocPreloads preloads;
+  private final EndpointService endpoints;
+  private volatile JavadocRoutes routes;
+
+  public JavadocHandlerMapping(
+    final EndpointService endpoints,
+    final ServingConfiguration serving,
+    final JavadocService service,
+    final JavadocInjector injector,
+    final JavadocPreloads preloads
+  ) {
+    this.serving = serving;
+    this.service = service;
+    this.injector = injector;
+    this.preloads = preloads;
+    this.endpoints = endpoints;
+    this.routes = new JavadocRoutes(endpoints.endpoints());
+    this.setOrder(HIGHEST_PRECEDENCE);
+  }
+
+  @EventListener
+  public void onEndpointsChanged(final EndpointsChangedEvent event) {
+    this.routes = new JavadocRoutes(this.endpoints.endpoints());
+  }
+
+  @Override
+  protected @Nullable Object getHandlerInternal(final HttpServletRequest request) {
+    if (!this.serving.fastPath()) {
+      return null;
+    }
+    final String method = request.getMethod();
+    if (!HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)) {
+      return null;
+    }
+    for (final String header : CONTROLLER_HEADERS) {
+      if (request.getHeader(header) != null) {
+        return null;
+      }
+    }
+    final String uri = request.getRequestURI();
+    // encoded or parameterised paths take the regular route
+    if (uri.indexOf('%') >= 0 || uri.indexOf(';') >= 0) {
+      return null;
+    }
+    final int start = request.getContextPath().length();
+    final JavadocKey key = this.routes.match(uri, start);
+    if (key == null) {
+      return null;
+    }
+    // the slash after the version, the service normalizes paths the same way for every route
+    final int pathStart = start + key.project().length() + key.version().length() + 2;
+    final String path = pathStart == uri.length() - 1 ? INDEX : uri.substring(pathStart + 1);
+    return (HttpRequestHandler) (req, res) -> this.serve(req, res, key, path);
+  }
+
+  private void serve(final HttpServletRequest request, final HttpServletResponse response, final JavadocKey key, final String path) throws IOException {
+    final JavadocService.@Nullable Result result = this.service.contentsFor(key, path);
+    final URI uri = result != null ? result.uri() : null;
+    if (uri != null) {
+      response.setStatus(HttpServletResponse.SC_FOUND);
+      response.setHeader(HttpHeaders.LOCATION, uri.toString());
+      return;
+    }
+    final Path file = result != null ? result.file() : null;
+    if (file == null || !Files.isRegularFile(file)) {
+      response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+      response.setHeader(HttpHeaders.CACHE_CONTROL, NO_CACHE);
+      return;
+    }
+    final String name = file.getFileName().toString();
+    if (name.endsWith(Injection.HTML)) {
+      this.preloads.send(request, response, key);
+    }
+    response.setHeader(HttpHeaders.CACHE_CONTROL, isStatic(path) ? STATICS_CACHE_CONTROL : PAGE_CACHE_CONTROL);
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline");
+    response.setHeader("X-JavaDucks", "Quack");
+    final boolean head = HttpMethod.HEAD.matches(request.getMethod());
+    final List<Injection> injections = this.injector.injectionsFor(file, key);
+    if (!injections.isEmpty()) {
+      // streamed as it is injected, the length isn't known up front
+      response.setContentType(INJECTED_CONTENT_TYPE);
+      if (!head) {
+        try {
+          this.injector.transferInjected(file, key, injections, response.getOutputStream());
+        } catch (final OverloadedException e) {
+          // nothing was written yet, drop the headers meant for the page so the refusal isn't cached like one
+          response.reset();
+          response.setStatus(e.getStatusCode().value());
+          e.getHeaders().forEach((header, values) -> values.forEach(value -> response.addHeader(header, value)));
+        }
+      }
+      return;
+    }
+    final long size = Files.size(file);
+    response.setContentType(contentType(name));
+    response.setContentLengthLong(size);
+    if (head) {
+      return;
+    }
+    if (file.getFileSystem() == FileSystems.getDefault() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+      // blobs live on disk, let the connector hand them to the kernel without copying
+      request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+      request.setAttribute(SENDFILE_START, 0L);
+      request.setAttribute(SENDFILE_END, size);
+    } else {
+      Files.copy(file, response.getOutputStream());
+    }
+  }
+
+  // same as JavadocController.STATICS_PATTERN without running a regex
+  private static boolean isStatic(final String path) {
+    return (path.endsWith(".js") || path.endsWith(".png") || path.endsWith(".css") || path.endsWith(Injection.HTML)) && !path.contains("search-index");
+  }
+
+  private static String contentType(final String name) {
+    final MediaType mediaType = MediaTypes.forName(name);
+    if (mediaType != null) {
+      return mediaType.toString();
+    }
+    return MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.controller;
+
+import com.seiama.javaducks.configuration.properties.ServingConfiguration;
+import com.seiama.javaducks.service.JavadocService;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import com.seiama.javaducks.service.javadoc.injection.HashedAssetInjection;
+import com.seiama.javaducks.service.javadoc.storage.JavadocManifest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import org.jspecify.annotations.NullMarked;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+@Component
+@NullMarked
+public class JavadocPreloads {
+  private static final Logger LOGGER = LoggerFactory.getLogger(JavadocPreloads.class);
+  private static final Map<String, String> PRELOAD_DESTINATIONS = Map.of(
+    ".css", "style",
+    ".js", "script",
+    ".png", "image",
+    ".gif", "image",
+    ".svg", "image"
+  );
+  private final JavadocService service;
+  private final ServingConfiguration serving;
+
+  public JavadocPreloads(final JavadocService service, final ServingConfiguration serving) {
+    this.service = service;
+    this.serving = serving;
+  }
+
+  // the links go straight to the servlet response so they are part of the early hints as well
+  public void send(final HttpServletRequest request, final HttpServletResponse response, final JavadocKey key) {
+    if (!this.serving.preload()) {
+      return;
+    }
+    final JavadocManifest manifest = this.service.manifestFor(key);
+    if (manifest != null) {
+      for (final String path : manifest.preloads()) {
+        final JavadocManifest.Asset asset = manifest.asset(path);
+        final String destination = PRELOAD_DESTINATIONS.get(path.substring(path.lastIndexOf('.')));
+        if (asset == null || destination == null) {
+          continue;
+        }
+        final String url = this.serving.hashedAssets() && asset.relocatable()
+          ? HashedAssetInjection.ASSETS + asset.blob().getFileName()
+          : "/%s/%s/%s".formatted(key.project(), key.version(), path);
+        response.addHeader(HttpHeaders.LINK, "<%s>; rel=preload; as=%s".formatted(url, destination));
+      }
+    }
+    if (Files.isReadable(this.service.faviconFor(key.project()))) {
+      response.addHeader(HttpHeaders.LINK, "</%s/favicon.ico>; rel=preload; as=image".formatted(key.project()));
+    }
+    // HTTP/1.0 clients don't understand informational responses
+    if (this.serving.earlyHints() && response.containsHeader(HttpHeaders.LINK) && !"HTTP/1.0".equals(request.getProtocol())) {
+      try {
+        // tomcat sends the headers set so far as 103 Early Hints and keeps them for the final response
+        response.sendError(HttpStatus.EARLY_HINTS.value());
+      } catch (final IOException e) {
+        LOGGER.debug("Could not send early hints for {} {}", key.project(), key.version(), e);
+      }
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.controller;
+
+import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import java.util.Arrays;
+import java.util.List;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// character trie of the configured projects and their versions, walked once per request
+@NullMarked
+final class JavadocRoutes {
+  private final Node projects = new Node();
+
+  JavadocRoutes(final List<AppConfiguration.EndpointConfiguration> endpoints) {
+    for (final AppConfiguration.EndpointConfiguration endpoint : endpoints) {
+      final Node project = this.projects.insert(endpoint.name());
+      if (project.versions == null) {
+        project.versions = new Node();
+      }
+      for (final AppConfiguration.EndpointConfiguration.Version version : endpoint.versions()) {
+        project.versions.insert(version.name()).key = new JavadocKey(endpoint.name(), version.name());
+      }
+    }
+  }
+
+  // matches "/<project>/<version>/" at start, the path within the javadoc begins at the last slash
+  @Nullable JavadocKey match(final String uri, final int start) {
+    if (start >= uri.length() || uri.charAt(start) != '/') {
+      return null;
+    }
+    Node node = this.projects;
+    int index = start + 1;
+    for (; index < uri.length() && uri.charAt(index) != '/'; index++) {
+      node = node.child(uri.charAt(index));
+      if (node == null) {
+        return null;
+      }
+    }
+    node = node.versions;
+    if (node == null || index >= uri.length()) {
+      return null;
+    }
+    for (index++; index < uri.length() && uri.charAt(index) != '/'; index++) {
+      node = node.child(uri.charAt(index));
+      if (node == null) {
+        return null;
+      }
+    }
+    // without the trailing slash the controller redirects
+    return index < uri.length() ? node.key : null;
+  }
+
+  private static final class Node {
+    private char[] labels = new char[0];
+    private Node[] children = new Node[0];
+    private @Nullable Node versions;
+    private @Nullable JavadocKey key;
+
+    @Nullable Node child(final char label) {
+      for (int i = 0; i < this.labels.length; i++) {
+        if (this.labels[i] == label) {
+          return this.children[i];
+        }
+      }
+      return null;
+    }
+
+    Node insert(final String name) {
+      Node node = this;
+      for (int i = 0; i < name.length(); i++) {
+        final char label = name.charAt(i);
+        Node child = node.child(label);
+        if (child == null) {
+          child = new Node();
+          node.labels = Arrays.copyOf(node.labels, node.labels.length + 1);
+          node.children = Arrays.copyOf(node.children, node.children.length + 1);
+          node.labels[node.labels.length - 1] = label;
+          node.children[node.children.length - 1] = child;
+        }
+        node = child;
+      }
+      return node;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.controller;
+
+import java.util.Map;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.MediaType;
+
+// content types by file suffix, looked up instead of scanned
+@NullMarked
+final class MediaTypes {
+  private static final Map<String, MediaType> SUFFIXES = Map.of(
+    ".css", MediaType.parseMediaType("text/css"),
+    ".js", MediaType.parseMediaType("application/javascript"),
+    ".zip", MediaType.parseMediaType("application/zip"),
+    ".html", MediaType.parseMediaType("text/html"),
+    ".svg", MediaType.parseMediaType("image/svg+xml")
+  );
+
+  private MediaTypes() {
+  }
+
+  static @Nullable MediaType forName(final String name) {
+    final int dot = name.lastIndexOf('.');
+    return dot < 0 ? null : SUFFIXES.get(name.substring(dot));
+  }
+}
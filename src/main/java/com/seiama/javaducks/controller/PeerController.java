@@ -0,0 +1,110 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.controller;
+
+import com.seiama.javaducks.configuration.properties.ClusterConfiguration;
+import com.seiama.javaducks.service.JavadocService;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import com.seiama.javaducks.service.javadoc.storage.BlobStore;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import static org.springframework.http.ResponseEntity.notFound;
+import static org.springframework.http.ResponseEntity.ok;
+import static org.springframework.http.ResponseEntity.status;
+
+// serves installed jars to sibling replicas, the etag is the verified hash of the content
+@Controller
+@NullMarked
+public class PeerController {
+  static final String INTERNAL = "/_internal/";
+  private static final MediaType JAR = MediaType.parseMediaType("application/java-archive");
+  private final JavadocService service;
+  private final ClusterConfiguration cluster;
+
+  @Autowired
+  public PeerController(final JavadocService service, final ClusterConfiguration cluster) {
+    this.service = service;
+    this.cluster = cluster;
+  }
+
+  @GetMapping(INTERNAL + "jars/{project:[a-z]+}/{version}")
+  @ResponseBody
+  public ResponseEntity<?> jar(
+    @PathVariable final String project,
+    @PathVariable final String version,
+    @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) final @Nullable String authorization,
+    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final @Nullable String ifMatch
+  ) {
+    if (!this.cluster.internalEnabled()) {
+      return notFound().build();
+    }
+    if (!this.authorized(authorization)) {
+      return status(HttpStatus.UNAUTHORIZED)
+        .header(HttpHeaders.WWW_AUTHENTICATE, "Bearer")
+        .build();
+    }
+    final Path jar = this.service.installedJar(new JavadocKey(project, version));
+    if (jar == null) {
+      return notFound()
+        .cacheControl(CacheControl.noStore())
+        .build();
+    }
+    final String etag = '"' + BlobStore.jarHash(jar) + '"';
+    // a replica asking for other content than we have installed gets nothing rather than the wrong jar
+    if (ifMatch != null && !ifMatch.equals(etag)) {
+      return status(HttpStatus.PRECONDITION_FAILED)
+        .cacheControl(CacheControl.noStore())
+        .build();
+    }
+    return ok()
+      .cacheControl(CacheControl.noStore())
+      .eTag(etag)
+      .contentType(JAR)
+      .body(new FileSystemResource(jar));
+  }
+
+  private boolean authorized(final @Nullable String authorization) {
+    final String token = this.cluster.token();
+    if (token == null || authorization == null || !authorization.startsWith("Bearer ")) {
+      return false;
+    }
+    return MessageDigest.isEqual(authorization.substring("Bearer ".length()).getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.controller;
+
+import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.configuration.properties.RateLimitConfiguration;
+import com.seiama.javaducks.service.EndpointService;
+import com.seiama.javaducks.service.RateLimitService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+// sits in front of both the controllers and the fast path, so crawlers walking outdated
+// versions run out of budget before they cost any injection or zip work
+@Component
+@NullMarked
+public class RateLimitFilter extends OncePerRequestFilter {
+  private static final List<String> CRAWLER_MARKERS = List.of("bot", "crawl", "spider", "slurp");
+  private static final String NO_STORE = CacheControl.noStore().getHeaderValue();
+  private final EndpointService endpoints;
+  private final RateLimitConfiguration rateLimit;
+  private final RateLimitService service;
+
+  public RateLimitFilter(final EndpointService endpoints, final RateLimitConfiguration rateLimit, final RateLimitService service) {
+    this.endpoints = endpoints;
+    this.rateLimit = rateLimit;
+    this.service = service;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(final HttpServletRequest request) {
+    return !this.service.enabled() || isInternal(request);
+  }
+
+  @Override
+  protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain) throws ServletException, IOException {
+    final String uri = request.getRequestURI();
+    final int projectStart = request.getContextPath().length() + 1;
+    final int projectEnd = segmentEnd(uri, projectStart);
+    final AppConfiguration.EndpointConfiguration endpoint = projectEnd > projectStart ? this.endpoints.endpoint(uri.substring(projectStart, projectEnd)) : null;
+    final boolean outdated = endpoint != null && projectEnd < uri.length() && isOutdated(endpoint, uri.substring(projectEnd + 1, segmentEnd(uri, projectEnd + 1)));
+    final long wait = this.service.acquire(endpoint != null ? endpoint.name() : null, outdated, this.clientOf(request));
+    if (wait > 0) {
+      response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1))));
+      response.setHeader(HttpHeaders.CACHE_CONTROL, NO_STORE);
+      return;
+    }
+    chain.doFilter(request, response);
+  }
+
+  // monitoring, replicas and publishers are not clients
+  private static boolean isInternal(final HttpServletRequest request) {
+    final String uri = request.getRequestURI();
+    final String context = request.getContextPath();
+    return uri.startsWith(context + "/actuator/") || uri.startsWith(context + PeerController.INTERNAL) || uri.startsWith(context + WebhookController.HOOKS);
+  }
+
+  private String clientOf(final HttpServletRequest request) {
+    return switch (this.rateLimit.key()) {
+      case CLIENT_IP -> request.getRemoteAddr();
+      case USER_AGENT -> {
+        // a user agent says nothing about who is behind it unless it is a crawler, so people stay apart
+        final String crawler = crawlerOf(request.getHeader(HttpHeaders.USER_AGENT));
+        yield crawler != null ? crawler : request.getRemoteAddr();
+      }
+    };
+  }
+
+  // crawlers share a bucket per product token (googlebot, bingbot, ...)
+  private static @Nullable String crawlerOf(final @Nullable String userAgent) {
+    if (userAgent == null) {
+      return null;
+    }
+    final String lowerCase = userAgent.toLowerCase(Locale.ROOT);
+    for (final String marker : CRAWLER_MARKERS) {
+      final int index = lowerCase.indexOf(marker);
+      if (index >= 0) {
+        int start = index;
+        while (start > 0 && isTokenChar(lowerCase.charAt(start - 1))) {
+          start--;
+        }
+        int end = index + marker.length();
+        while (end < lowerCase.length() && isTokenChar(lowerCase.charAt(end))) {
+          end++;
+        }
+        return lowerCase.substring(start, end);
+      }
+    }
+    return null;
+  }
+
+  private static boolean isTokenChar(final char c) {
+    return c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '-' || c == '_';
+  }
+
+  private static boolean isOutdated(final AppConfiguration.EndpointConfiguration endpoint, final String version) {
+    final List<AppConfiguration.EndpointConfiguration.Version> versions = endpoint.versions();
+    for (int i = 0; i < versions.size() - 1; i++) {
+      if (versions.get(i).name().equals(version)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int segmentEnd(final String uri, final int start) {
+    final int slash = uri.indexOf('/', start);
+    return slash < 0 ? uri.length() : slash;
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.controller;
+
+import com.seiama.javaducks.configuration.properties.SearchConfiguration;
+import com.seiama.javaducks.service.FullTextService;
+import com.seiama.javaducks.service.JavadocService;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import com.seiama.javaducks.service.javadoc.fulltext.FullTextResult;
+import com.seiama.javaducks.service.javadoc.search.SearchResult;
+import java.time.Duration;
+import java.util.List;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import static org.springframework.http.ResponseEntity.notFound;
+import static org.springframework.http.ResponseEntity.ok;
+
+@Controller
+@NullMarked
+public class SearchController {
+  private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofMinutes(10));
+  private final JavadocService service;
+  private final FullTextService fullText;
+  private final SearchConfiguration configuration;
+
+  @Autowired
+  public SearchController(final JavadocService service, final FullTextService fullText, final SearchConfiguration configuration) {
+    this.service = service;
+    this.fullText = fullText;
+    this.configuration = configuration;
+  }
+
+  @GetMapping("/{project:[a-z]+}/{version:[0-9.]+-?(?:pre|SNAPSHOT)?(?:[0-9.]+)?}/search")
+  @ResponseBody
+  public ResponseEntity<?> search(
+    @PathVariable final String project,
+    @PathVariable final String version,
+    @RequestParam("q") final String query,
+    @RequestParam(value = "limit", required = false) final @Nullable Integer limit
+  ) {
+    final List<SearchResult> results = this.service.search(new JavadocKey(project, version), query, this.limit(limit));
+    if (results == null) {
+      return notFound()
+        .cacheControl(CacheControl.noCache())
+        .build();
+    }
+    return ok()
+      .cacheControl(CACHE_CONTROL)
+      .body(new SearchResponse(query, results));
+  }
+
+  @GetMapping("/{project:[a-z]+}/{version:[0-9.]+-?(?:pre|SNAPSHOT)?(?:[0-9.]+)?}/fulltext")
+  @ResponseBody
+  public ResponseEntity<?> fullText(
+    @PathVariable final String project,
+    @PathVariable final String version,
+    @RequestParam("q") final String query,
+    @RequestParam(value = "limit", required = false) final @Nullable Integer limit
+  ) {
+    final List<FullTextResult> results = this.fullText.search(new JavadocKey(project, version), query, this.limit(limit));
+    if (results == null) {
+      return notFound()
+        .cacheControl(CacheControl.noCache())
+        .build();
+    }
+    return ok()
+      .cacheControl(CACHE_CONTROL)
+      .body(new FullTextResponse(query, results));
+  }
+
+  @GetMapping("/{project:[a-z]+}/symbols")
+  @ResponseBody
+  public ResponseEntity<?> symbol(
+    @PathVariable final String project,
+    @RequestParam("name") final String name
+  ) {
+    final List<String> versions = this.service.symbolVersions(project, name);
+    if (versions == null || versions.isEmpty()) {
+      return notFound()
+        .cacheControl(CacheControl.noCache())
+        .build();
+    }
+    return ok()
+      .cacheControl(CACHE_CONTROL)
+      .body(new SymbolResponse(name, versions.get(0), versions));
+  }
+
+  private int limit(final @Nullable Integer limit) {
+    return Math.min(limit != null ? limit : this.configuration.defaultLimit(), this.configuration.maxLimit());
+  }
+
+  @NullMarked
+  public record FullTextResponse(
+    String query,
+    List<FullTextResult> results
+  ) {
+  }
+
+  @NullMarked
+  public record SymbolResponse(
+    String name,
+    String since,
+    List<String> versions
+  ) {
+  }
+
+  @NullMarked
+  public record SearchResponse(
+    String query,
+    List<SearchResult> results
+  ) {
+  }
+}
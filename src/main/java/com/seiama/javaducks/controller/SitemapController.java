@@ -0,0 +1,91 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.controller;
+
+import com.seiama.javaducks.service.SitemapService;
+import java.time.Duration;
+import org.jspecify.annotations.NullMarked;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import static org.springframework.http.ResponseEntity.notFound;
+import static org.springframework.http.ResponseEntity.ok;
+
+@Controller
+@NullMarked
+public class SitemapController {
+  private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofHours(1));
+  private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+  private final SitemapService service;
+
+  @Autowired
+  public SitemapController(final SitemapService service) {
+    this.service = service;
+  }
+
+  @GetMapping("/robots.txt")
+  @ResponseBody
+  public ResponseEntity<?> robots() {
+    return ok()
+      .cacheControl(CACHE_CONTROL)
+      .contentType(MediaType.TEXT_PLAIN)
+      .body(this.service.robots());
+  }
+
+  @GetMapping("/sitemap.xml")
+  @ResponseBody
+  public ResponseEntity<?> sitemapIndex() {
+    final byte[] index = this.service.index();
+    if (index == null) {
+      return notFound()
+        .cacheControl(CacheControl.noCache())
+        .build();
+    }
+    return ok()
+      .cacheControl(CACHE_CONTROL)
+      .contentType(MediaType.APPLICATION_XML)
+      .body(index);
+  }
+
+  @GetMapping("/sitemap-{project:[a-z]+}-{number:[0-9]+}.xml.gz")
+  @ResponseBody
+  public ResponseEntity<?> sitemap(@PathVariable final String project, @PathVariable final int number) {
+    final byte[] sitemap = this.service.chunk(project, number);
+    if (sitemap == null) {
+      return notFound()
+        .cacheControl(CacheControl.noCache())
+        .build();
+    }
+    return ok()
+      .cacheControl(CACHE_CONTROL)
+      .contentType(GZIP)
+      .body(sitemap);
+  }
+}
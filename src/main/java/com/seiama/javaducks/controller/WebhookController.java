@@ -0,0 +1,102 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.controller;
+
+import com.seiama.javaducks.configuration.properties.ClusterConfiguration;
+import com.seiama.javaducks.configuration.properties.WebhookConfiguration;
+import com.seiama.javaducks.service.WebhookService;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import static org.springframework.http.ResponseEntity.accepted;
+import static org.springframework.http.ResponseEntity.notFound;
+import static org.springframework.http.ResponseEntity.status;
+
+// lets a repository manager or CI announce a freshly published artifact instead of waiting for the next check
+@Controller
+@NullMarked
+public class WebhookController {
+  static final String HOOKS = "/_hooks/";
+  private final WebhookService service;
+  private final WebhookConfiguration webhook;
+  private final ClusterConfiguration cluster;
+
+  @Autowired
+  public WebhookController(final WebhookService service, final WebhookConfiguration webhook, final ClusterConfiguration cluster) {
+    this.service = service;
+    this.webhook = webhook;
+    this.cluster = cluster;
+  }
+
+  @PostMapping(HOOKS + "published")
+  @ResponseBody
+  public ResponseEntity<?> published(
+    @RequestParam final String group,
+    @RequestParam final String artifact,
+    @RequestParam(required = false) final @Nullable String version,
+    @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) final @Nullable String authorization
+  ) {
+    // serve-only nodes never download, the notification belongs with an ingest node
+    if (!this.webhook.enabled() || !this.cluster.role().ingests()) {
+      return notFound().build();
+    }
+    if (!this.authorized(authorization)) {
+      return status(HttpStatus.UNAUTHORIZED)
+        .header(HttpHeaders.WWW_AUTHENTICATE, "Bearer")
+        .build();
+    }
+    final Set<JavadocKey> keys = this.service.published(group, artifact, version);
+    if (keys.isEmpty()) {
+      return notFound().build();
+    }
+    return accepted().body(new Refreshing(keys.stream().map(key -> key.project() + "/" + key.version()).toList()));
+  }
+
+  private boolean authorized(final @Nullable String authorization) {
+    if (authorization == null || !authorization.startsWith("Bearer ")) {
+      return false;
+    }
+    final String secret = Objects.requireNonNull(this.webhook.secret(), "secret");
+    return MessageDigest.isEqual(authorization.substring("Bearer ".length()).getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @NullMarked
+  public record Refreshing(List<String> versions) {
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service;
+
+import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.configuration.properties.ReloadConfiguration;
+import com.seiama.javaducks.service.javadoc.EndpointsChangedEvent;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.boot.env.PropertySourceLoader;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+
+// the endpoints currently configured. they start out as bound on startup and are replaced when the
+// watched endpoints file changes, only the versions that differ are told about it
+@NullMarked
+@Service
+public class EndpointService {
+  private static final Logger LOGGER = LoggerFactory.getLogger(EndpointService.class);
+  private static final String PROPERTY = "app.endpoints";
+  private final @Nullable Path file;
+  private final ApplicationEventPublisher events;
+  private volatile AppConfiguration current;
+  private @Nullable WatchService watcher;
+
+  @Autowired
+  public EndpointService(final AppConfiguration configuration, final ReloadConfiguration reload, final ApplicationEventPublisher events) {
+    this.current = configuration;
+    this.file = reload.endpoints() != null ? reload.endpoints().toAbsolutePath() : null;
+    this.events = events;
+  }
+
+  public EndpointService(final AppConfiguration configuration) {
+    this(configuration, new ReloadConfiguration(null), event -> {});
+  }
+
+  public List<AppConfiguration.EndpointConfiguration> endpoints() {
+    return this.current.endpoints();
+  }
+
+  public AppConfiguration.@Nullable EndpointConfiguration endpoint(final String endpointName) {
+    return this.current.endpoint(endpointName);
+  }
+
+  public AppConfiguration.EndpointConfiguration.@Nullable Version endpoint(final String endpointName, final String versionName) {
+    return this.current.endpoint(endpointName, versionName);
+  }
+
+  @PostConstruct
+  public void start() {
+    final Path file = this.file;
+    if (file == null) {
+      return;
+    }
+    try {
+      final WatchService watcher = file.getFileSystem().newWatchService();
+      // editors replace files rather than writing them in place, so watch the directory
+      file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+      this.watcher = watcher;
+      final Thread thread = new Thread(() -> this.watch(watcher, file), "javaducks-endpoints-watcher");
+      thread.setDaemon(true);
+      thread.start();
+    } catch (final IOException e) {
+      LOGGER.warn("Could not watch {}, endpoints are not reloaded. Exception: {}: {}", file, e.getClass().getName(), e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() throws IOException {
+    if (this.watcher != null) {
+      this.watcher.close();
+    }
+  }
+
+  private void watch(final WatchService watcher, final Path file) {
+    try {
+      while (true) {
+        final WatchKey watchKey = watcher.take();
+        boolean touched = false;
+        for (final WatchEvent<?> event : watchKey.pollEvents()) {
+          touched |= event.context() instanceof final Path changed && changed.equals(file.getFileName());
+        }
+        watchKey.reset();
+        if (touched) {
+          this.reload(file);
+        }
+      }
+    } catch (final ClosedWatchServiceException | InterruptedException e) {
+      // shutting down
+    }
+  }
+
+  void reload(final Path file) {
+    final List<AppConfiguration.EndpointConfiguration> endpoints;
+    try {
+      final PropertySourceLoader loader = file.getFileName().toString().endsWith(".properties") ? new PropertiesPropertySourceLoader() : new YamlPropertySourceLoader();
+      final List<PropertySource<?>> sources = loader.load(file.toString(), new FileSystemResource(file));
+      endpoints = new Binder(ConfigurationPropertySources.from(sources)).bind(PROPERTY, Bindable.listOf(AppConfiguration.EndpointConfiguration.class)).orElse(null);
+    } catch (final IOException | RuntimeException e) {
+      // half written or invalid, keep serving what we have and try again on the next change
+      LOGGER.warn("Could not reload endpoints from {}. Exception: {}: {}", file, e.getClass().getName(), e.getMessage());
+      return;
+    }
+    if (endpoints == null) {
+      LOGGER.warn("Could not reload endpoints from {}, it has no {}", file, PROPERTY);
+      return;
+    }
+    this.apply(endpoints);
+  }
+
+  public synchronized @Nullable EndpointsChangedEvent apply(final List<AppConfiguration.EndpointConfiguration> endpoints) {
+    final Map<JavadocKey, AppConfiguration.EndpointConfiguration.Version> before = versions(this.current.endpoints());
+    final Map<JavadocKey, AppConfiguration.EndpointConfiguration.Version> after = versions(endpoints);
+    final Set<JavadocKey> added = new HashSet<>();
+    final Set<JavadocKey> changed = new HashSet<>();
+    after.forEach((key, version) -> {
+      final AppConfiguration.EndpointConfiguration.Version previous = before.get(key);
+      if (previous == null) {
+        added.add(key);
+      } else if (!previous.equals(version)) {
+        changed.add(key);
+      }
+    });
+    final Set<JavadocKey> removed = new HashSet<>(before.keySet());
+    removed.removeAll(after.keySet());
+    final AppConfiguration current = this.current;
+    // the order of versions decides which one is the latest, so it is applied even without a diff
+    this.current = new AppConfiguration(current.rootRedirect(), current.hostName(), current.storage(), List.copyOf(endpoints), current.hashTypes());
+    if (added.isEmpty() && removed.isEmpty() && changed.isEmpty()) {
+      return null;
+    }
+    LOGGER.info("Reloaded endpoints, {} versions added, {} removed and {} changed", added.size(), removed.size(), changed.size());
+    final EndpointsChangedEvent event = new EndpointsChangedEvent(Set.copyOf(added), Set.copyOf(removed), Set.copyOf(changed));
+    this.events.publishEvent(event);
+    return event;
+  }
+
+  private static Map<JavadocKey, AppConfiguration.EndpointConfiguration.Version> versions(final List<AppConfiguration.EndpointConfiguration> endpoints) {
+    final Map<JavadocKey, AppConfiguration.EndpointConfiguration.Version> versions = new HashMap<>();
+    for (final AppConfiguration.EndpointConfiguration endpoint : endpoints) {
+      for (final AppConfiguration.EndpointConfiguration.Version version : endpoint.versions()) {
+        versions.put(new JavadocKey(endpoint.name(), version.name()), version);
+      }
+    }
+    return versions;
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service;
+
+import com.seiama.javaducks.configuration.properties.ClusterConfiguration;
+import com.seiama.javaducks.service.javadoc.EndpointsChangedEvent;
+import com.seiama.javaducks.service.javadoc.JavadocInstalledEvent;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import com.seiama.javaducks.service.javadoc.fulltext.FullTextIndexer;
+import com.seiama.javaducks.service.javadoc.fulltext.FullTextResult;
+import com.seiama.javaducks.service.javadoc.fulltext.FullTextSegment;
+import com.seiama.javaducks.service.javadoc.storage.BlobStore;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+@NullMarked
+@Service
+public class FullTextService {
+  private static final Logger LOGGER = LoggerFactory.getLogger(FullTextService.class);
+  static final String SEGMENT_EXTENSION = ".fulltext";
+  // names the jar content a segment was built from, next to the segment
+  static final String SOURCE_EXTENSION = ".fulltext-source";
+  private final EndpointService endpoints;
+  private final ClusterConfiguration cluster;
+  private final JavadocService service;
+  private final Map<JavadocKey, FullTextSegment> segments = new ConcurrentHashMap<>();
+  // segments are built one at a time so a new snapshot never competes with serving for more than one core
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    final Thread thread = new Thread(runnable, "javaducks-fulltext");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  @Autowired
+  public FullTextService(final EndpointService endpoints, final ClusterConfiguration cluster, final JavadocService service) {
+    this.endpoints = endpoints;
+    this.cluster = cluster;
+    this.service = service;
+  }
+
+  public @Nullable List<FullTextResult> search(final JavadocKey key, final String query, final int limit) {
+    if (this.endpoints.endpoint(key.project(), key.version()) == null) {
+      return null;
+    }
+    final FullTextSegment segment = this.segments.get(key);
+    return segment != null ? segment.search(query, limit) : List.of();
+  }
+
+  @EventListener
+  public void onInstalled(final JavadocInstalledEvent event) {
+    this.reload(event.key(), event.jar());
+  }
+
+  @EventListener
+  public void onEndpointsChanged(final EndpointsChangedEvent event) {
+    for (final JavadocKey key : event.removed()) {
+      this.segments.remove(key);
+    }
+  }
+
+  public void reload(final JavadocKey key, final Path jar) {
+    this.executor.execute(() -> this.load(key, jar));
+  }
+
+  private void load(final JavadocKey key, final Path jar) {
+    final Path segment = jar.resolveSibling(key.version() + SEGMENT_EXTENSION);
+    final Path source = jar.resolveSibling(key.version() + SOURCE_EXTENSION);
+    try {
+      final String content = this.contentOf(key, jar);
+      if (!Files.isRegularFile(segment) || !Files.isRegularFile(source) || !content.equals(Files.readString(source, StandardCharsets.UTF_8))) {
+        if (!this.cluster.role().ingests()) {
+          LOGGER.debug("Full text index for {} {} is not built yet", key.project(), key.version());
+          return;
+        }
+        final Path temporary = jar.resolveSibling(key.version() + SEGMENT_EXTENSION + ".tmp");
+        final int documents;
+        try (final FileSystem fs = FileSystems.newFileSystem(jar)) {
+          documents = FullTextIndexer.index(fs.getPath("/"), temporary);
+        }
+        Files.move(temporary, segment, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // written last, a segment without its source is rebuilt
+        final Path temporarySource = jar.resolveSibling(key.version() + SOURCE_EXTENSION + ".tmp");
+        Files.writeString(temporarySource, content, StandardCharsets.UTF_8);
+        Files.move(temporarySource, source, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOGGER.info("Built full text index of {} pages for {} {}", documents, key.project(), key.version());
+      }
+      if (this.cluster.role().serves()) {
+        this.segments.put(key, FullTextSegment.open(segment));
+      }
+    } catch (final IOException e) {
+      LOGGER.warn("Could not build full text index for {} {}. Exception: {}: {}", key.project(), key.version(), e.getClass().getName(), e.getMessage());
+    }
+  }
+
+  // the hash of the blob the jar is linked to. modification times can't tell, a version relinked to
+  // a blob downloaded earlier goes back in time
+  private String contentOf(final JavadocKey key, final Path jar) throws IOException {
+    final Path blob = this.service.installedJar(key);
+    if (blob != null) {
+      return BlobStore.jarHash(blob);
+    }
+    // copied rather than linked, the copy is as new as its content
+    final BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+    return attributes.size() + "-" + attributes.lastModifiedTime().toMillis();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    this.executor.shutdownNow();
+  }
+}
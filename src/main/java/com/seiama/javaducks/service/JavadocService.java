@@ -27,30 +27,76 @@ import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.github.benmanes.caffeine.cache.RemovalListener;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.HashingOutputStream;
 import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.configuration.properties.ClusterConfiguration;
+import com.seiama.javaducks.configuration.properties.UpstreamConfiguration;
+import com.seiama.javaducks.jfr.ContentsLookupEvent;
+import com.seiama.javaducks.jfr.FileSystemCloseEvent;
+import com.seiama.javaducks.jfr.FileSystemOpenEvent;
+import com.seiama.javaducks.jfr.RefreshStageEvent;
 import com.seiama.javaducks.model.MavenMetadata;
+import com.seiama.javaducks.service.javadoc.EndpointsChangedEvent;
+import com.seiama.javaducks.service.javadoc.HotPaths;
+import com.seiama.javaducks.service.javadoc.JavadocInstalledEvent;
 import com.seiama.javaducks.service.javadoc.JavadocKey;
+import com.seiama.javaducks.service.javadoc.RefreshSchedule;
+import com.seiama.javaducks.service.javadoc.search.SearchIndex;
+import com.seiama.javaducks.service.javadoc.search.SearchResult;
+import com.seiama.javaducks.service.javadoc.search.SymbolIndex;
+import com.seiama.javaducks.service.javadoc.storage.BlobStore;
+import com.seiama.javaducks.service.javadoc.storage.JavadocManifest;
+import com.seiama.javaducks.service.javadoc.storage.RefreshLeases;
+import com.seiama.javaducks.service.javadoc.storage.WarmState;
+import com.seiama.javaducks.service.javadoc.upstream.HashCapabilities;
+import com.seiama.javaducks.service.javadoc.upstream.Mirrors;
 import com.seiama.javaducks.util.maven.MavenHashType;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -60,54 +106,178 @@ public class JavadocService {
   private static final Logger LOGGER = LoggerFactory.getLogger(JavadocService.class);
   private static final XmlMapper XML_MAPPER = new XmlMapper();
   private static final long REFRESH_INITIAL_DELAY = 0; // in minutes
-  private static final long REFRESH_RATE = 15; // in minutes
+  private static final long REFRESH_TICK = 1; // in minutes, versions are only checked when their schedule says so
+  private static final Duration COLLECT_INTERVAL = Duration.ofMinutes(15);
+  private static final int HOT_PATHS_CAPACITY = 10_000;
+  // full search indexes kept for querying, the symbol index holds what cross-version lookups need of the rest
+  private static final int SEARCH_INDEXES_CAPACITY = 32;
+  private static final Duration SEARCH_INDEXES_IDLE = Duration.ofHours(1);
   private static final String USER_AGENT = "JavaDucks";
   private static final String MAVEN_METADATA = "maven-metadata.xml";
+  private static final int TRANSFER_BUFFER = 64 * 1024;
   private final RestClient restClient;
   private final AppConfiguration configuration;
+  private final EndpointService endpoints;
+  private final ClusterConfiguration cluster;
+  private final UpstreamConfiguration upstream;
   private final LoadingCache<JavadocKey, CachedLookup> contents;
+  private final LoadingCache<JavadocKey, SearchIndex> searchIndexes;
+  private final SymbolIndex symbols = new SymbolIndex();
+  private final HotPaths hotPaths = new HotPaths(HOT_PATHS_CAPACITY);
+  private final ApplicationEventPublisher events;
+  private final Set<JavadocKey> announced = ConcurrentHashMap.newKeySet();
+  // versions whose coordinates changed, an installed release has to be resolved again
+  private final Set<JavadocKey> reresolve = ConcurrentHashMap.newKeySet();
+  // removed versions whose files the refresh thread deletes, so a refresh in flight can't reinstall them
+  private final Set<JavadocKey> removed = ConcurrentHashMap.newKeySet();
+  // a version is refreshed by one thread at a time, the cycle and notifications don't wait on each other otherwise
+  private final Map<JavadocKey, Object> refreshLocks = new ConcurrentHashMap<>();
+  // the jar each version was last resolved to, names its partial download
+  private final Map<JavadocKey, URI> resolved = new ConcurrentHashMap<>();
+  private final BlobStore blobs;
+  // the file each version was last loaded from, to notice jars installed by other nodes
+  private final Map<JavadocKey, Object> generations = new ConcurrentHashMap<>();
+  private final Mirrors mirrors;
+  private final HashCapabilities hashCapabilities;
+  // hedged requests and concurrent hash probes
+  private final ExecutorService upstreamExecutor = Executors.newCachedThreadPool(runnable -> {
+    final Thread thread = new Thread(runnable, "javaducks-upstream");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final RefreshLeases leases;
+  private final RefreshSchedule schedule;
+  private volatile Instant nextCollect = Instant.EPOCH;
+  // refreshes wait until the installed versions are warm so they don't compete for io on startup
+  private volatile boolean warm;
+  private volatile @Nullable Instant firstServed;
 
   @Autowired
-  public JavadocService(final AppConfiguration configuration, final RestClient.Builder restClientBuilder) {
-    this(configuration, restClientBuilder.build());
+  public JavadocService(final AppConfiguration configuration, final EndpointService endpoints, final ClusterConfiguration cluster, final UpstreamConfiguration upstream, final RestClient.Builder restClientBuilder, final ApplicationEventPublisher events) {
+    this(configuration, endpoints, cluster, upstream, restClientBuilder.build(), events);
   }
 
   JavadocService(final AppConfiguration configuration, final RestClient restClient) {
+    this(configuration, ClusterConfiguration.STANDALONE, UpstreamConfiguration.DEFAULT, restClient, event -> {});
+  }
+
+  JavadocService(final AppConfiguration configuration, final ClusterConfiguration cluster, final UpstreamConfiguration upstream, final RestClient restClient, final ApplicationEventPublisher events) {
+    this(configuration, new EndpointService(configuration), cluster, upstream, restClient, events);
+  }
+
+  private JavadocService(final AppConfiguration configuration, final EndpointService endpoints, final ClusterConfiguration cluster, final UpstreamConfiguration upstream, final RestClient restClient, final ApplicationEventPublisher events) {
     this.configuration = configuration;
+    this.endpoints = endpoints;
+    this.cluster = cluster;
+    this.upstream = upstream;
+    this.mirrors = new Mirrors(upstream.mirrors());
+    // a node taking the lease a little late must still see the check as taken
+    this.leases = new RefreshLeases(upstream.schedule().minInterval().multipliedBy(9).dividedBy(10));
+    this.schedule = new RefreshSchedule(upstream.schedule());
+    this.hashCapabilities = new HashCapabilities(configuration.storage().resolve(".hash-types"));
     this.restClient = restClient;
+    this.events = events;
+    this.blobs = new BlobStore(configuration.storage().resolve(".blobs"));
     this.contents = Caffeine.newBuilder()
       .refreshAfterWrite(Duration.ofMinutes(10))
       .removalListener((RemovalListener<JavadocKey, CachedLookup>) (key, value, cause) -> {
         if (value != null) {
+          final FileSystemCloseEvent event = new FileSystemCloseEvent();
+          event.begin();
           try {
             value.close();
           } catch (final IOException e) {
             LOGGER.error("Could not close file system", e);
           }
+          if (value.fs() != null && key != null && event.shouldCommit()) {
+            event.project = key.project();
+            event.version = key.version();
+            event.cause = cause.name();
+            event.commit();
+          }
         }
       })
       .build(key -> {
-        final AppConfiguration.EndpointConfiguration.Version config = this.configuration.endpoint(key.project(), key.version());
+        final AppConfiguration.EndpointConfiguration.Version config = this.endpoints.endpoint(key.project(), key.version());
         if (config != null) {
           return switch (config.type()) {
             case MAVEN -> {
               final Path path = this.configuration.storage().resolve(key.project()).resolve(key.version() + ".jar");
               if (Files.isRegularFile(path)) {
-                yield new CachedLookup(FileSystems.newFileSystem(path), null);
+                final FileSystemOpenEvent event = new FileSystemOpenEvent();
+                event.begin();
+                final FileSystem fs = FileSystems.newFileSystem(path);
+                if (event.shouldCommit()) {
+                  event.project = key.project();
+                  event.version = key.version();
+                  event.jar = path.toString();
+                  event.commit();
+                }
+                yield new CachedLookup(fs, this.readManifest(path), null);
               }
               yield null;
             }
-            case REDIRECT -> new CachedLookup(null, config.redirectUri());
+            case REDIRECT -> new CachedLookup(null, null, config.redirectUri());
           };
         }
         return null;
       });
+    this.searchIndexes = Caffeine.newBuilder()
+      .maximumSize(SEARCH_INDEXES_CAPACITY)
+      .expireAfterAccess(SEARCH_INDEXES_IDLE)
+      .build(key -> {
+        final CachedLookup lookup = this.contents.get(key);
+        if (lookup != null && lookup.fs() != null) {
+          final SearchIndex index = SearchIndex.load(lookup.fs().getPath("/"));
+          this.symbols.update(key.project(), key.version(), index.symbols());
+          LOGGER.debug("Indexed {} search entries for {} {}", index.size(), key.project(), key.version());
+          return index;
+        }
+        return SearchIndex.EMPTY;
+      });
+  }
+
+  public @Nullable Result contentsFor(final JavadocKey key, final String requestedPath) {
+    // the versioned route keeps the leading slash, the fast path and the alias don't; one page is one path
+    final String path = requestedPath.startsWith("/") ? requestedPath.substring(1) : requestedPath;
+    final ContentsLookupEvent event = new ContentsLookupEvent();
+    event.begin();
+    final Result result = this.lookup(key, path);
+    if (event.shouldCommit()) {
+      event.project = key.project();
+      event.version = key.version();
+      event.path = path;
+      event.outcome = result == null ? "MISSING" : result.file() != null ? "FILE" : "REDIRECT";
+      event.commit();
+    }
+    // a lookup hands out a path whether or not the page exists, misses and probes aren't hot pages
+    if (result != null && result.file() != null && Files.isRegularFile(result.file())) {
+      if (this.firstServed == null) {
+        this.firstServed = Instant.now();
+      }
+      this.hotPaths.record(key, path);
+    }
+    return result;
+  }
+
+  private @Nullable JavadocManifest readManifest(final Path jar) {
+    try {
+      return JavadocManifest.read(JavadocManifest.pathFor(jar), this.blobs);
+    } catch (final IOException e) {
+      LOGGER.warn("Could not read manifest for {}. Exception: {}: {}", jar, e.getClass().getName(), e.getMessage());
+      return null;
+    }
   }
 
-  public @Nullable Result contentsFor(final JavadocKey key, final String path) {
+  private @Nullable Result lookup(final JavadocKey key, final String path) {
     final CachedLookup lookup = this.contents.get(key);
     if (lookup != null) {
       if (lookup.fs() != null) {
+        // shared assets are served from their blob so every version hits the same page cache
+        final JavadocManifest.Asset asset = lookup.manifest() != null ? lookup.manifest().asset(path) : null;
+        if (asset != null && Files.isRegularFile(asset.blob())) {
+          return new Result(asset.blob(), null);
+        }
         return new Result(lookup.fs().getPath(path), null);
       } else if (lookup.uri() != null) {
         return new Result(null, lookup.uri());
@@ -116,62 +286,417 @@ public class JavadocService {
     return null;
   }
 
+  public @Nullable List<SearchResult> search(final JavadocKey key, final String query, final int limit) {
+    if (this.endpoints.endpoint(key.project(), key.version()) == null) {
+      return null;
+    }
+    return this.searchIndexes.get(key).search(query, limit);
+  }
+
+  public @Nullable List<String> symbolVersions(final String project, final String symbol) {
+    final AppConfiguration.EndpointConfiguration endpoint = this.endpoints.endpoint(project);
+    if (endpoint == null) {
+      return null;
+    }
+    return this.symbols.versions(project, symbol, endpoint.versions().stream().map(AppConfiguration.EndpointConfiguration.Version::name).toList());
+  }
+
+  public @Nullable JavadocManifest manifestFor(final JavadocKey key) {
+    final CachedLookup lookup = this.contents.get(key);
+    return lookup != null ? lookup.manifest() : null;
+  }
+
+  // modification time of the installed jar in millis, or -1 if there is none
+  public long lastModified(final JavadocKey key) {
+    final AppConfiguration.EndpointConfiguration.Version version = this.endpoints.endpoint(key.project(), key.version());
+    if (version == null || version.type() != AppConfiguration.EndpointConfiguration.Version.Type.MAVEN) {
+      return -1;
+    }
+    try {
+      return Files.getLastModifiedTime(this.configuration.storage().resolve(key.project()).resolve(key.version() + ".jar")).toMillis();
+    } catch (final IOException e) {
+      return -1;
+    }
+  }
+
+  public @Nullable Path assetFor(final String hash, final String extension) {
+    return this.blobs.existingAsset(hash, extension);
+  }
+
+  // the blob an installed version is linked to, for replicas filling their storage from us
+  public @Nullable Path installedJar(final JavadocKey key) {
+    final AppConfiguration.EndpointConfiguration.Version config = this.endpoints.endpoint(key.project(), key.version());
+    if (config == null || config.type() != AppConfiguration.EndpointConfiguration.Version.Type.MAVEN) {
+      return null;
+    }
+    try {
+      return this.blobs.linkedJar(this.configuration.storage().resolve(key.project()).resolve(key.version() + ".jar"));
+    } catch (final IOException e) {
+      LOGGER.warn("Could not find stored jar for {} {}. Exception: {}: {}", key.project(), key.version(), e.getClass().getName(), e.getMessage());
+      return null;
+    }
+  }
+
+  public boolean hasSearchIndex(final JavadocKey key) {
+    return this.searchIndexes.get(key).size() > 0;
+  }
+
   public Path faviconFor(final String project) {
     return this.configuration.storage().resolve(project).resolve("favicon.ico");
   }
 
   @Scheduled(
     initialDelay = REFRESH_INITIAL_DELAY,
-    fixedRate = REFRESH_RATE,
+    fixedRate = REFRESH_TICK,
     timeUnit = TimeUnit.MINUTES
   )
+  public void refreshDue() {
+    if (this.warm) {
+      this.refresh(false);
+    }
+  }
+
+  // opens and indexes an installed version before it is first requested
+  public void warm(final JavadocKey key) {
+    final AppConfiguration.EndpointConfiguration.Version version = this.endpoints.endpoint(key.project(), key.version());
+    if (version != null && version.type() == AppConfiguration.EndpointConfiguration.Version.Type.MAVEN) {
+      this.index(key, this.configuration.storage().resolve(key.project()).resolve(key.version() + ".jar"));
+    }
+  }
+
+  // the installed versions are warm, the first refresh runs right away on the calling thread
+  public void warmed() {
+    this.warm = true;
+    this.refreshDue();
+  }
+
+  public @Nullable Instant firstServed() {
+    return this.firstServed;
+  }
+
+  // the hottest pages and the refresh schedule, every snapshot halves the page counts
+  public WarmState warmState(final int pages) {
+    final WarmState state = new WarmState(this.hotPaths.top(pages), this.schedule.checks());
+    this.hotPaths.decay();
+    return state;
+  }
+
+  public void restore(final WarmState state) {
+    state.pages().forEach(this.hotPaths::restore);
+    state.checks().forEach((key, check) -> {
+      // a version that isn't installed anymore is due right away, whatever was remembered
+      final AppConfiguration.EndpointConfiguration.Version version = this.endpoints.endpoint(key.project(), key.version());
+      if (version != null && version.type() == AppConfiguration.EndpointConfiguration.Version.Type.MAVEN && Files.isRegularFile(this.configuration.storage().resolve(key.project()).resolve(key.version() + ".jar"))) {
+        this.schedule.restore(key, check);
+      }
+    });
+  }
+
+  // reads a page once so its bytes are in the page cache before it is requested
+  public void prefetch(final JavadocKey key, final String path) {
+    final Result result = this.lookup(key, path);
+    if (result == null || result.file() == null || !Files.isRegularFile(result.file())) {
+      return;
+    }
+    try (final InputStream input = Files.newInputStream(result.file())) {
+      input.transferTo(OutputStream.nullOutputStream());
+    } catch (final IOException e) {
+      LOGGER.debug("Could not prefetch {} of {} {}", path, key.project(), key.version(), e);
+    }
+  }
+
   public void refreshAll() {
-    for (final AppConfiguration.EndpointConfiguration endpoint : this.configuration.endpoints()) {
-      this.refreshEndpoint(endpoint);
+    this.refresh(true);
+  }
+
+  public Map<JavadocKey, RefreshSchedule.Check> refreshSchedule() {
+    return this.schedule.checks();
+  }
+
+  // refreshes a single version right away, regardless of its schedule; only waits for a refresh of the
+  // same version, not for the whole cycle
+  public Refresh refresh(final JavadocKey key) {
+    final AppConfiguration.EndpointConfiguration endpoint = this.endpoints.endpoint(key.project());
+    final AppConfiguration.EndpointConfiguration.Version version = this.endpoints.endpoint(key.project(), key.version());
+    if (endpoint == null || version == null || version.type() != AppConfiguration.EndpointConfiguration.Version.Type.MAVEN || !this.cluster.role().ingests()) {
+      return Refresh.SKIPPED;
+    }
+    final Path basePath = this.configuration.storage().resolve(endpoint.name());
+    final Refresh refresh;
+    synchronized (this.refreshLock(key)) {
+      // a notification arriving shortly after a scheduled check mustn't wait out the cycle
+      refresh = this.refreshChecked(endpoint, version, basePath, key, true);
     }
+    this.index(key, basePath.resolve(version.name() + ".jar"));
+    return refresh;
+  }
+
+  private Object refreshLock(final JavadocKey key) {
+    return this.refreshLocks.computeIfAbsent(key, ignored -> new Object());
   }
 
-  private void refreshEndpoint(final AppConfiguration.EndpointConfiguration endpoint) {
+  private synchronized void refresh(final boolean all) {
+    final Instant now = Instant.now();
+    if (this.cluster.role().ingests()) {
+      this.releaseRemoved();
+    }
+    for (final AppConfiguration.EndpointConfiguration endpoint : this.endpoints.endpoints()) {
+      this.refreshEndpoint(endpoint, all, now);
+    }
+    if (this.cluster.role().ingests() && (all || !now.isBefore(this.nextCollect))) {
+      this.nextCollect = now.plus(COLLECT_INTERVAL);
+      this.collectBlobs();
+    }
+  }
+
+  // drops blobs that no installed version refers to anymore
+  private void collectBlobs() {
+    final Set<Path> jars = new HashSet<>();
+    final Set<Path> assets = new HashSet<>();
+    for (final AppConfiguration.EndpointConfiguration endpoint : this.endpoints.endpoints()) {
+      for (final AppConfiguration.EndpointConfiguration.Version version : endpoint.versions()) {
+        if (version.type() != AppConfiguration.EndpointConfiguration.Version.Type.MAVEN) {
+          continue;
+        }
+        final Path jar = this.configuration.storage().resolve(endpoint.name()).resolve(version.name() + ".jar");
+        jars.add(jar);
+        final JavadocManifest manifest = this.readManifest(jar);
+        if (manifest == null && Files.isRegularFile(jar)) {
+          // can't tell what this version needs, keep everything
+          return;
+        }
+        if (manifest != null) {
+          manifest.assets().forEach(asset -> assets.add(asset.blob()));
+        }
+      }
+    }
+    this.blobs.collect(jars, assets);
+  }
+
+  private void refreshEndpoint(final AppConfiguration.EndpointConfiguration endpoint, final boolean all, final Instant now) {
     final Path basePath = this.configuration.storage().resolve(endpoint.name());
     for (final AppConfiguration.EndpointConfiguration.Version version : endpoint.versions()) {
-      this.refreshVersion(endpoint, version, basePath);
+      if (version.type() != AppConfiguration.EndpointConfiguration.Version.Type.MAVEN) {
+        // redirects have nothing to refresh
+        continue;
+      }
+      final JavadocKey key = new JavadocKey(endpoint.name(), version.name());
+      final Path jar = basePath.resolve(version.name() + ".jar");
+      if (this.cluster.role().ingests() && (all || this.schedule.due(key, now))) {
+        synchronized (this.refreshLock(key)) {
+          this.refreshChecked(endpoint, version, basePath, key, false);
+        }
+      }
+      this.index(key, jar);
     }
   }
 
-  private void refreshVersion(final AppConfiguration.EndpointConfiguration config, final AppConfiguration.EndpointConfiguration.Version version, final Path basePath) {
-    final URI jar = this.resolveUriFor(config, version);
-    if (jar == null) return;
+  private Refresh refreshChecked(final AppConfiguration.EndpointConfiguration endpoint, final AppConfiguration.EndpointConfiguration.Version version, final Path basePath, final JavadocKey key, final boolean now) {
+    final Refresh refresh = this.refreshLeased(endpoint, version, basePath, now);
+    final Path jar = basePath.resolve(version.name() + ".jar");
+    // a check that couldn't reach upstream learned nothing about how often the version changes
+    final Instant next = refresh == Refresh.FAILED
+      ? this.schedule.failed(key, Instant.now())
+      : this.schedule.checked(key, Instant.now(), !version.isSnapshot() && !version.isChangingRelease() && Files.exists(jar));
+    LOGGER.debug("Next check of {} {} at {}", endpoint.name(), version.name(), next);
+    return refresh;
+  }
+
+  // with shared storage only the node holding the version's lease refreshes it, once per cycle unless asked to now
+  private Refresh refreshLeased(final AppConfiguration.EndpointConfiguration config, final AppConfiguration.EndpointConfiguration.Version version, final Path basePath, final boolean now) {
+    if (!this.cluster.storageShared() || version.type() != AppConfiguration.EndpointConfiguration.Version.Type.MAVEN) {
+      return this.refreshVersion(config, version, basePath) ? Refresh.REFRESHED : Refresh.FAILED;
+    }
+    try {
+      Files.createDirectories(basePath);
+      final Path jar = basePath.resolve(version.name() + ".jar");
+      try (final RefreshLeases.Lease lease = now ? this.leases.acquireNow(jar) : this.leases.acquire(jar)) {
+        if (lease == null) {
+          LOGGER.debug("Javadoc for {} {} is refreshed by another node", config.name(), version.name());
+          return Refresh.LEASED;
+        }
+        return this.refreshVersion(config, version, basePath) ? Refresh.REFRESHED : Refresh.FAILED;
+      }
+    } catch (final IOException e) {
+      LOGGER.warn("Could not update javadoc for {} {}. Couldn't take lease. Exception: {}: {}", config.name(), version.name(), e.getClass().getName(), e.getMessage());
+      return Refresh.FAILED;
+    }
+  }
 
+  // only the versions that differ lose their state, everything else stays warm; events arrive one at a
+  // time and never wait on a refresh in progress
+  @EventListener
+  public void onEndpointsChanged(final EndpointsChangedEvent event) {
+    for (final JavadocKey key : event.removed()) {
+      this.contents.invalidate(key);
+      this.searchIndexes.invalidate(key);
+      this.symbols.remove(key.project(), key.version());
+      this.hotPaths.forget(key);
+      this.schedule.forget(key);
+      this.announced.remove(key);
+      this.generations.remove(key);
+      this.reresolve.remove(key);
+      this.removed.add(key);
+    }
+    for (final JavadocKey key : event.changed()) {
+      final AppConfiguration.EndpointConfiguration.Version version = this.endpoints.endpoint(key.project(), key.version());
+      final CachedLookup lookup = this.contents.getIfPresent(key);
+      // a jar keeps being served until the new coordinates resolve, a redirect has nothing to keep
+      if (version == null || version.type() == AppConfiguration.EndpointConfiguration.Version.Type.REDIRECT || lookup != null && lookup.fs() == null) {
+        this.contents.invalidate(key);
+      }
+      this.schedule.forget(key);
+      this.reresolve.add(key);
+    }
+    // added versions are unknown to the schedule and so are due on the next tick
+  }
+
+  private void releaseRemoved() {
+    for (final Iterator<JavadocKey> it = this.removed.iterator(); it.hasNext();) {
+      final JavadocKey key = it.next();
+      it.remove();
+      // unless it was added back before this refresh came around
+      if (this.endpoints.endpoint(key.project(), key.version()) == null) {
+        this.release(key);
+        this.refreshLocks.remove(key);
+      }
+    }
+  }
+
+  // everything stored for the version goes, the blobs are dropped by the next collection once no
+  // version refers to them
+  private void release(final JavadocKey key) {
+    final Path jar = this.configuration.storage().resolve(key.project()).resolve(key.version() + ".jar");
+    final URI uri = this.resolved.remove(key);
+    try {
+      for (final String extension : List.of(FullTextService.SEGMENT_EXTENSION, FullTextService.SOURCE_EXTENSION, RefreshLeases.EXTENSION)) {
+        Files.deleteIfExists(jar.resolveSibling(key.version() + extension));
+      }
+      Files.deleteIfExists(JavadocManifest.pathFor(jar));
+      Files.deleteIfExists(jar);
+      if (uri != null) {
+        final Path partial = this.blobs.partialJar(uri);
+        Files.deleteIfExists(partial);
+        Files.deleteIfExists(BlobStore.validatorFor(partial));
+      }
+      this.nextCollect = Instant.EPOCH;
+      LOGGER.info("Released javadoc for {} {}", key.project(), key.version());
+    } catch (final IOException e) {
+      LOGGER.warn("Could not release javadoc for {} {}. Exception: {}: {}", key.project(), key.version(), e.getClass().getName(), e.getMessage());
+    }
+  }
+
+  // picks up a jar that another node installed into the shared storage
+  public void reload(final JavadocKey key) {
+    final Path jar = this.configuration.storage().resolve(key.project()).resolve(key.version() + ".jar");
+    final Object generation = generationOf(jar);
+    if (generation == null) {
+      return;
+    }
+    final Object previous = this.generations.put(key, generation);
+    if (generation.equals(previous) || previous == null && this.announced.contains(key)) {
+      return;
+    }
+    this.contents.invalidate(key);
+    if (this.cluster.role().serves()) {
+      this.searchIndexes.refresh(key);
+    }
+    this.announced.add(key);
+    this.events.publishEvent(new JavadocInstalledEvent(key, jar));
+    LOGGER.info("Reloaded javadoc for {} {}", key.project(), key.version());
+  }
+
+  private static @Nullable Object generationOf(final Path jar) {
+    try {
+      final BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+      return attributes.fileKey() != null ? attributes.fileKey() : attributes.lastModifiedTime();
+    } catch (final IOException e) {
+      return null;
+    }
+  }
+
+  // builds the indexes of versions that were installed before we started
+  private void index(final JavadocKey key, final Path jar) {
+    if (this.cluster.storageShared()) {
+      // in case the watcher missed another node's install
+      this.reload(key);
+    }
+    // missing, or written by an older version of us
+    if (this.cluster.role().ingests() && Files.isRegularFile(jar) && !JavadocManifest.current(JavadocManifest.pathFor(jar))) {
+      this.writeManifest(key, jar);
+      this.contents.invalidate(key);
+    }
+    if (this.cluster.role().serves()) {
+      try {
+        this.searchIndexes.get(key);
+      } catch (final Exception e) {
+        LOGGER.warn("Could not index javadoc for {} {}. Exception: {}: {}", key.project(), key.version(), e.getClass().getName(), e.getMessage());
+      }
+    }
+    if (Files.isRegularFile(jar) && this.announced.add(key)) {
+      this.events.publishEvent(new JavadocInstalledEvent(key, jar));
+    }
+  }
+
+  // false when upstream couldn't be checked, up to date and updated are both a successful check
+  private boolean refreshVersion(final AppConfiguration.EndpointConfiguration config, final AppConfiguration.EndpointConfiguration.Version version, final Path basePath) {
     if (version.type() == AppConfiguration.EndpointConfiguration.Version.Type.REDIRECT) {
       LOGGER.debug("Javadoc for {} {} is a redirect and will not be updated", config.name(), version.name());
-      return;
+      return true;
     }
 
+    final URI jar = this.resolveUriFor(config, version);
+    if (jar == null) return false;
+    final JavadocKey key = new JavadocKey(config.name(), version.name());
+    this.resolved.put(key, jar);
+
     final Path versionPath = basePath.resolve(version.name() + ".jar");
     try {
       Files.createDirectories(versionPath.getParent());
     } catch (final IOException e) {
       LOGGER.warn("Could not update javadoc for {} {}. Couldn't create directory. Exception: {}: {}", config.name(), version.name(), e.getClass().getName(), e.getMessage());
-      return;
+      return false;
     }
 
     // don't download again if it's a release
-    if (version.type() == AppConfiguration.EndpointConfiguration.Version.Type.MAVEN && !version.isSnapshot() && !version.isChangingRelease() && Files.exists(versionPath)) {
+    if (version.type() == AppConfiguration.EndpointConfiguration.Version.Type.MAVEN && !version.isSnapshot() && !version.isChangingRelease() && Files.exists(versionPath) && !this.reresolve.contains(key)) {
       LOGGER.debug("Javadoc for {} {} is a release and will not be updated", config.name(), version.name());
-      return;
+      return true;
     }
 
     // get hash
     final MavenHashPair hashPair = this.downloadHash(config, jar, version);
 
     if (hashPair != null) {
+      // another version may have already downloaded the same jar
+      final Path blob = this.blobs.jar(hashPair.type(), hashPair.hash());
+      if (blob != null && Files.isRegularFile(blob)) {
+        try {
+          if (Files.exists(versionPath) && Files.isSameFile(versionPath, blob)) {
+            this.reresolve.remove(key);
+            LOGGER.debug("Javadoc for {} {} is up to date", config.name(), version.name());
+            return true;
+          }
+          LOGGER.debug("Javadoc for {} {} is already stored, linking {}", config.name(), version.name(), blob.getFileName());
+          this.install(config, version, jar, blob, versionPath);
+          LOGGER.info("Updated javadoc for {} {}", config.name(), version.name());
+          return true;
+        } catch (final IOException e) {
+          LOGGER.warn("Could not link javadoc for {} {}. Exception: {}: {}", config.name(), version.name(), e.getClass().getName(), e.getMessage());
+        }
+      }
       // check hash
       if (Files.isReadable(versionPath)) {
         try {
+          final RefreshStageEvent event = new RefreshStageEvent();
+          event.begin();
           final String hashOnDisk = hashPair.type().algorithm().hash(versionPath).toString();
-          if (hashOnDisk.equals(hashPair.hash())) {
+          final boolean upToDate = hashOnDisk.equals(hashPair.hash());
+          commitStage(event, config, version, RefreshStageEvent.Stage.VERIFY, jar, upToDate);
+          if (upToDate) {
+            this.reresolve.remove(key);
             LOGGER.debug("Javadoc for {} {} is up to date", config.name(), version.name());
-            return;
+            return true;
           }
         } catch (final IOException e) {
           throw new RuntimeException(e);
@@ -179,36 +704,303 @@ public class JavadocService {
       }
     }
 
-    this.downloadJar(config, version, jar, hashPair, versionPath);
+    // a sibling replica is closer than the maven repository
+    if (hashPair != null && this.fillFromPeers(config, version, jar, hashPair, versionPath)) {
+      return true;
+    }
+
+    return this.downloadJar(config, version, jar, hashPair, versionPath);
   }
 
-  private void downloadJar(final AppConfiguration.EndpointConfiguration config, final AppConfiguration.EndpointConfiguration.Version version, final URI jar, final @Nullable MavenHashPair hashPair, final Path versionPath) {
+  private boolean fillFromPeers(final AppConfiguration.EndpointConfiguration config, final AppConfiguration.EndpointConfiguration.Version version, final URI jar, final MavenHashPair hashPair, final Path versionPath) {
+    final String token = this.cluster.token();
+    final Path blob = this.blobs.jar(hashPair.type(), hashPair.hash());
+    if (token == null || blob == null) {
+      return false;
+    }
+    // the blob name is the etag peers use for the same content
+    final String etag = '"' + BlobStore.jarHash(blob) + '"';
+    for (final URI peer : this.cluster.peers()) {
+      final URI uri = UriComponentsBuilder.fromUri(peer).pathSegment("_internal", "jars", config.name(), version.name()).build().toUri();
+      final RefreshStageEvent event = new RefreshStageEvent();
+      event.begin();
+      Path temporary = null;
+      try {
+        temporary = this.blobs.temporaryJar();
+        final Download download = this.download(uri, hashPair.type(), temporary, headers -> {
+          headers.setBearerAuth(token);
+          headers.setIfMatch(etag);
+        });
+        final boolean verified = download.hash() != null && blob.equals(this.blobs.jar(hashPair.type(), download.hash().toString()));
+        commitStage(event, config, version, RefreshStageEvent.Stage.PEER_FILL, uri, verified);
+        if (!verified) {
+          LOGGER.debug("Peer {} could not provide javadoc for {} {}. Status code: {}", peer, config.name(), version.name(), download.status());
+          continue;
+        }
+        this.blobs.store(temporary, blob);
+        this.install(config, version, jar, blob, versionPath);
+        LOGGER.info("Updated javadoc for {} {} from peer {}", config.name(), version.name(), peer);
+        return true;
+      } catch (final Exception e) {
+        commitStage(event, config, version, RefreshStageEvent.Stage.PEER_FILL, uri, false);
+        LOGGER.debug("Could not fetch javadoc for {} {} from peer {}. Exception: {}: {}", config.name(), version.name(), peer, e.getClass().getName(), e.getMessage());
+      } finally {
+        if (temporary != null) {
+          try {
+            Files.deleteIfExists(temporary);
+          } catch (final IOException e) {
+            LOGGER.debug("Could not delete {}", temporary, e);
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private boolean downloadJar(final AppConfiguration.EndpointConfiguration config, final AppConfiguration.EndpointConfiguration.Version version, final URI jar, final @Nullable MavenHashPair hashPair, final Path versionPath) {
+    final MavenHashType hashType = hashPair != null ? hashPair.type() : MavenHashType.SHA256;
+    Path partial = null;
+    boolean discard = false;
     try {
-      final ResponseEntity<byte[]> response = this.restClient.get()
-        .uri(jar)
-        .header(HttpHeaders.USER_AGENT, USER_AGENT)
-        .retrieve()
-        .toEntity(byte[].class);
-      if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-        LOGGER.warn("Could not update javadoc for {} {}. Couldn't download jar. Url: {}, Status code: {}", config.name(), version.name(), jar, response.getStatusCode());
-        return;
+      final RefreshStageEvent downloadEvent = new RefreshStageEvent();
+      downloadEvent.begin();
+      partial = this.blobs.partialJar(jar);
+      final Download download = this.downloadFromMirrors(jar, hashType, partial);
+      final boolean downloaded = download.hash() != null;
+      commitStage(downloadEvent, config, version, RefreshStageEvent.Stage.DOWNLOAD, jar, downloaded);
+      if (!downloaded) {
+        LOGGER.warn("Could not update javadoc for {} {}. Couldn't download jar. Url: {}, Status code: {}", config.name(), version.name(), jar, download.status());
+        return false;
       }
+      final String downloadedHash = download.hash().toString();
       if (hashPair != null) {
-        final String downloadedHash = hashPair.type().algorithm().hash(response.getBody()).toString();
-        if (!downloadedHash.equals(hashPair.hash())) {
+        final RefreshStageEvent verifyEvent = new RefreshStageEvent();
+        verifyEvent.begin();
+        final boolean verified = downloadedHash.equals(hashPair.hash());
+        commitStage(verifyEvent, config, version, RefreshStageEvent.Stage.VERIFY, jar, verified);
+        if (!verified) {
+          // don't resume from bytes that add up to the wrong jar
+          discard = true;
           LOGGER.warn("Could not update javadoc for {} {}. {} Hash mismatch. Expected: {}, got: {}", config.name(), version.name(), hashPair.type(), hashPair.hash(), downloadedHash);
-          return;
+          return false;
         }
       }
-      // first write the new file
-      Files.write(versionPath, response.getBody(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
-      // then remove old cached file systems since they are now invalid
-      this.contents.invalidate(new JavadocKey(config.name(), version.name()));
+      final Path blob = Objects.requireNonNull(this.blobs.jar(hashType, downloadedHash));
+      discard = true;
+      this.blobs.store(partial, blob);
+      this.install(config, version, jar, blob, versionPath);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
     } catch (final Exception e) {
+      // the partial download is kept, the next cycle continues it
       LOGGER.warn("Could not update javadoc for {} {}. Couldn't download jar. Url: {}, Exception: {}: {}", config.name(), version.name(), jar, e.getClass().getName(), e.getMessage());
-      return;
+      return false;
+    } finally {
+      if (partial != null && discard) {
+        try {
+          Files.deleteIfExists(partial);
+          Files.deleteIfExists(BlobStore.validatorFor(partial));
+        } catch (final IOException e) {
+          LOGGER.debug("Could not delete {}", partial, e);
+        }
+      }
     }
     LOGGER.info("Updated javadoc for {} {}", config.name(), version.name());
+    return true;
+  }
+
+  // the partial download is shared between mirrors, If-Range decides whether it can be continued
+  private Download downloadFromMirrors(final URI jar, final MavenHashType hashType, final Path partial) throws InterruptedException {
+    final List<URI> candidates = this.mirrors.candidates(jar);
+    for (int i = 0; ; i++) {
+      final URI candidate = candidates.get(i);
+      final boolean last = i == candidates.size() - 1;
+      try {
+        final Download download = this.downloadResumable(candidate, hashType, partial);
+        if (download.hash() != null) {
+          this.mirrors.success(candidate);
+          return download;
+        }
+        this.mirrors.failure(candidate);
+        if (last) {
+          return download;
+        }
+        LOGGER.info("Could not download {}, status code {}. Trying the next mirror", candidate, download.status());
+      } catch (final ResourceAccessException e) {
+        this.mirrors.failure(candidate);
+        if (last) {
+          throw e;
+        }
+        LOGGER.info("Could not download {}. Trying the next mirror. Exception: {}: {}", candidate, e.getClass().getName(), e.getMessage());
+      }
+    }
+  }
+
+  // retries with backoff, continuing from the bytes the last attempt got instead of starting over
+  private Download downloadResumable(final URI jar, final MavenHashType hashType, final Path partial) throws InterruptedException {
+    final UpstreamConfiguration.Retry retry = this.upstream.retry();
+    for (int attempt = 1; ; attempt++) {
+      try {
+        final Download download = this.downloadRange(jar, hashType, partial);
+        if (download.hash() != null || !isRetryable(download.status()) || attempt >= retry.attempts()) {
+          return download;
+        }
+        LOGGER.debug("Download of {} failed with status code {}, attempt {} of {}", jar, download.status(), attempt, retry.attempts());
+      } catch (final ResourceAccessException e) {
+        if (attempt >= retry.attempts()) {
+          throw e;
+        }
+        LOGGER.info("Download of {} was interrupted at {} bytes, attempt {} of {}. Exception: {}: {}", jar, sizeOf(partial), attempt, retry.attempts(), e.getClass().getName(), e.getMessage());
+      }
+      Thread.sleep(retry.backoff(attempt - 1).toMillis());
+    }
+  }
+
+  private Download downloadRange(final URI jar, final MavenHashType hashType, final Path partial) {
+    final Path validatorFile = BlobStore.validatorFor(partial);
+    final long offset = sizeOf(partial);
+    final String validator = offset > 0 ? readValidator(validatorFile) : null;
+    return this.restClient.get()
+      .uri(jar)
+      .header(HttpHeaders.USER_AGENT, USER_AGENT)
+      .headers(headers -> {
+        if (validator != null) {
+          headers.setRange(List.of(HttpRange.createByteRange(offset)));
+          // a changed jar is sent whole instead of the rest of another one
+          headers.set(HttpHeaders.IF_RANGE, validator);
+        }
+      })
+      .exchange((request, response) -> {
+        final HttpStatusCode status = response.getStatusCode();
+        final boolean resumed = validator != null && status.value() == HttpStatus.PARTIAL_CONTENT.value() && rangeStart(response.getHeaders()) == offset;
+        if (!resumed && status.value() != HttpStatus.OK.value()) {
+          if (status.value() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value() || status.value() == HttpStatus.PARTIAL_CONTENT.value()) {
+            // what we have doesn't line up with the jar anymore
+            Files.deleteIfExists(partial);
+          }
+          return new Download(status, null);
+        }
+        final Hasher hasher = hashType.algorithm().hasher();
+        if (resumed) {
+          Files.copy(partial, Funnels.asOutputStream(hasher));
+        } else {
+          final String started = validatorOf(response.getHeaders());
+          if (started != null) {
+            Files.writeString(validatorFile, started);
+          } else {
+            Files.deleteIfExists(validatorFile);
+          }
+        }
+        try (
+          final InputStream input = response.getBody();
+          final OutputStream output = resumed ? Files.newOutputStream(partial, StandardOpenOption.APPEND) : Files.newOutputStream(partial)
+        ) {
+          final byte[] buffer = new byte[TRANSFER_BUFFER];
+          int read;
+          while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+            hasher.putBytes(buffer, 0, read);
+          }
+        }
+        return new Download(status, hasher.hash());
+      });
+  }
+
+  private static boolean isRetryable(final HttpStatusCode status) {
+    return status.is5xxServerError() || status.value() == HttpStatus.TOO_MANY_REQUESTS.value() || status.value() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value() || status.value() == HttpStatus.PARTIAL_CONTENT.value();
+  }
+
+  // only strong validators can be used with If-Range
+  private static @Nullable String validatorOf(final HttpHeaders headers) {
+    final String etag = headers.getETag();
+    if (etag != null && !etag.startsWith("W/")) {
+      return etag;
+    }
+    return headers.getFirst(HttpHeaders.LAST_MODIFIED);
+  }
+
+  private static @Nullable String readValidator(final Path file) {
+    try {
+      return Files.isRegularFile(file) ? Files.readString(file) : null;
+    } catch (final IOException e) {
+      return null;
+    }
+  }
+
+  private static long rangeStart(final HttpHeaders headers) {
+    // bytes <start>-<end>/<length>
+    final String range = headers.getFirst(HttpHeaders.CONTENT_RANGE);
+    if (range == null || !range.startsWith("bytes ")) {
+      return -1;
+    }
+    final int dash = range.indexOf('-');
+    try {
+      return dash > 6 ? Long.parseLong(range.substring(6, dash).trim()) : -1;
+    } catch (final NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static long sizeOf(final Path file) {
+    try {
+      return Files.size(file);
+    } catch (final IOException e) {
+      return 0;
+    }
+  }
+
+  // streams the jar to disk and hashes it on the way instead of holding it in memory
+  private Download download(final URI jar, final MavenHashType hashType, final Path target, final Consumer<HttpHeaders> headers) {
+    return this.restClient.get()
+      .uri(jar)
+      .header(HttpHeaders.USER_AGENT, USER_AGENT)
+      .headers(headers)
+      .exchange((request, response) -> {
+        if (!response.getStatusCode().is2xxSuccessful()) {
+          return new Download(response.getStatusCode(), null);
+        }
+        try (
+          final InputStream input = response.getBody();
+          final HashingOutputStream output = hashType.algorithm().hashing(Files.newOutputStream(target))
+        ) {
+          input.transferTo(output);
+          output.flush();
+          return new Download(response.getStatusCode(), output.hash());
+        }
+      });
+  }
+
+  private void install(final AppConfiguration.EndpointConfiguration config, final AppConfiguration.EndpointConfiguration.Version version, final URI jar, final Path blob, final Path versionPath) throws IOException {
+    final RefreshStageEvent event = new RefreshStageEvent();
+    event.begin();
+    final JavadocKey key = new JavadocKey(config.name(), version.name());
+    // first link the new file
+    this.blobs.link(blob, versionPath);
+    final Object generation = generationOf(versionPath);
+    if (generation != null) {
+      this.generations.put(key, generation);
+    }
+    this.writeManifest(key, versionPath);
+    // then remove old cached file systems since they are now invalid
+    this.contents.invalidate(key);
+    // and rebuild the indexes from the new jar
+    if (this.cluster.role().serves()) {
+      this.searchIndexes.refresh(key);
+    }
+    this.announced.add(key);
+    this.reresolve.remove(key);
+    this.schedule.changed(key, Instant.now());
+    this.events.publishEvent(new JavadocInstalledEvent(key, versionPath));
+    commitStage(event, config, version, RefreshStageEvent.Stage.INSTALL, jar, true);
+  }
+
+  private void writeManifest(final JavadocKey key, final Path jar) {
+    try {
+      JavadocManifest.build(jar, this.blobs).write(JavadocManifest.pathFor(jar));
+    } catch (final Exception e) {
+      LOGGER.warn("Could not store assets for {} {}. Exception: {}: {}", key.project(), key.version(), e.getClass().getName(), e.getMessage());
+    }
   }
 
   private @Nullable URI resolveUriFor(final AppConfiguration.EndpointConfiguration config, final AppConfiguration.EndpointConfiguration.Version version) {
@@ -251,12 +1043,16 @@ public class JavadocService {
   }
 
   private @Nullable MavenMetadata fetchMetadata(final AppConfiguration.EndpointConfiguration config, final AppConfiguration.EndpointConfiguration.Version version, final URI metaDataUri) {
+    final RefreshStageEvent event = new RefreshStageEvent();
+    event.begin();
+    final MavenMetadata metadata = this.requestMetadata(config, version, metaDataUri);
+    commitStage(event, config, version, RefreshStageEvent.Stage.METADATA, metaDataUri, metadata != null);
+    return metadata;
+  }
+
+  private @Nullable MavenMetadata requestMetadata(final AppConfiguration.EndpointConfiguration config, final AppConfiguration.EndpointConfiguration.Version version, final URI metaDataUri) {
     try {
-      final ResponseEntity<String> response = this.restClient.get()
-        .uri(metaDataUri)
-        .header(HttpHeaders.USER_AGENT, USER_AGENT)
-        .retrieve()
-        .toEntity(String.class);
+      final ResponseEntity<String> response = this.fetchText(metaDataUri);
       if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
         LOGGER.warn("Could not fetch metadata for {} {}. Url: {}, Status code: {}", config.name(), version.name(), metaDataUri, response.getStatusCode());
         return null;
@@ -307,30 +1103,150 @@ public class JavadocService {
     return left.compareTo(right);
   }
 
-  public @Nullable MavenHashPair downloadHash(final AppConfiguration.EndpointConfiguration config, final URI jarUri, final AppConfiguration.EndpointConfiguration.Version version) {
-    for (final MavenHashType hashType : this.configuration.hashTypes()) {
-      final URI hashUri = UriComponentsBuilder.fromUri(jarUri).replacePath(jarUri.getPath() + "." + hashType.extension()).build().toUri();
+  // metadata and hashes come from the fastest healthy mirror, and from the next one as well when
+  // the first takes longer than it usually does. a mirror that fails is skipped for the next one
+  private ResponseEntity<String> fetchText(final URI uri) throws Exception {
+    final List<URI> candidates = this.mirrors.candidates(uri);
+    final UpstreamConfiguration.Hedging hedging = this.upstream.hedging();
+    Exception failure = null;
+    ResponseEntity<String> response = null;
+    int next = 0;
+    if (hedging.enabled() && candidates.size() > 1) {
+      final CompletableFuture<ResponseEntity<String>> first = CompletableFuture.supplyAsync(() -> this.requestText(candidates.get(0)), this.upstreamExecutor);
+      CompletableFuture<ResponseEntity<String>> answer = first;
+      next = 1;
       try {
-        final ResponseEntity<String> response = this.restClient.get()
-          .uri(hashUri)
-          .header(HttpHeaders.USER_AGENT, USER_AGENT)
-          .retrieve()
-          .toEntity(String.class);
-        if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-          LOGGER.debug("Downloaded hash for {}. Url: {} using hash type {}", config.name(), hashUri, hashType);
-          return new MavenHashPair(response.getBody(), hashType);
+        first.get(this.mirrors.hedgeDelay(candidates.get(0), hedging.percentile(), hedging.minDelay()).toNanos(), TimeUnit.NANOSECONDS);
+      } catch (final TimeoutException e) {
+        answer = firstUsable(first, CompletableFuture.supplyAsync(() -> this.requestText(candidates.get(1)), this.upstreamExecutor));
+        next = 2;
+      } catch (final ExecutionException e) {
+        // failed before the delay, handled below
+      }
+      try {
+        response = answer.get();
+        if (!response.getStatusCode().is5xxServerError()) {
+          return response;
         }
-      } catch (final Exception e) {
-        if (LOGGER.isDebugEnabled()) {
-          LOGGER.debug("Could not download {} hash for {}. Url: {}, Exception: {}: {}", hashType, config.name(), hashUri, e.getClass().getName(), e.getMessage());
-        } else {
-          LOGGER.warn("Could not download {} hash for {}. Url: {}, Exception: {}", hashType, config.name(), hashUri, e.getClass().getName());
+      } catch (final ExecutionException e) {
+        failure = e.getCause() instanceof final Exception cause ? cause : e;
+      }
+    }
+    for (int i = next; i < candidates.size(); i++) {
+      try {
+        response = this.requestText(candidates.get(i));
+        if (!response.getStatusCode().is5xxServerError()) {
+          return response;
         }
+      } catch (final RuntimeException e) {
+        failure = e;
+      }
+    }
+    if (response != null) {
+      return response;
+    }
+    throw failure != null ? failure : new IllegalStateException("No repository left for " + uri);
+  }
+
+  private ResponseEntity<String> requestText(final URI uri) {
+    final long start = System.nanoTime();
+    try {
+      final ResponseEntity<String> response = this.restClient.get()
+        .uri(uri)
+        .header(HttpHeaders.USER_AGENT, USER_AGENT)
+        .exchange((request, clientResponse) -> new ResponseEntity<>(clientResponse.bodyTo(String.class), clientResponse.getHeaders(), clientResponse.getStatusCode()));
+      this.mirrors.latency(uri, System.nanoTime() - start);
+      if (response.getStatusCode().is5xxServerError()) {
+        this.mirrors.failure(uri);
+      } else {
+        this.mirrors.success(uri);
+      }
+      return response;
+    } catch (final RuntimeException e) {
+      this.mirrors.failure(uri);
+      throw e;
+    }
+  }
+
+  // the first response that isn't a server error, or the last one when both are
+  private static CompletableFuture<ResponseEntity<String>> firstUsable(final CompletableFuture<ResponseEntity<String>> first, final CompletableFuture<ResponseEntity<String>> second) {
+    final CompletableFuture<ResponseEntity<String>> usable = new CompletableFuture<>();
+    final AtomicInteger remaining = new AtomicInteger(2);
+    for (final CompletableFuture<ResponseEntity<String>> future : List.of(first, second)) {
+      future.whenComplete((response, throwable) -> {
+        if (throwable == null && !response.getStatusCode().is5xxServerError()) {
+          usable.complete(response);
+        } else if (remaining.decrementAndGet() == 0) {
+          if (throwable != null) {
+            usable.completeExceptionally(throwable);
+          } else {
+            usable.complete(response);
+          }
+        }
+      });
+    }
+    return usable;
+  }
+
+  public @Nullable MavenHashPair downloadHash(final AppConfiguration.EndpointConfiguration config, final URI jarUri, final AppConfiguration.EndpointConfiguration.Version version) {
+    final MavenHashType known = this.hashCapabilities.get(jarUri);
+    if (known != null && this.configuration.hashTypes().contains(known)) {
+      final MavenHashPair hash = this.probeHash(config, jarUri, version, known);
+      if (hash != null) {
+        return hash;
+      }
+      // stopped serving it, or never did for this artifact
+      this.hashCapabilities.forget(jarUri);
+    }
+    // ask for every type at once and take the strongest, costs a single round trip
+    final List<CompletableFuture<@Nullable MavenHashPair>> probes = this.configuration.hashTypes().stream()
+      .map(hashType -> CompletableFuture.supplyAsync(() -> this.probeHash(config, jarUri, version, hashType), this.upstreamExecutor))
+      .toList();
+    for (final CompletableFuture<@Nullable MavenHashPair> probe : probes) {
+      final MavenHashPair hash = probe.join();
+      if (hash != null) {
+        this.hashCapabilities.remember(jarUri, hash.type());
+        return hash;
       }
     }
     return null; // throw new HashNotFoundException(config.name(), version.name());
   }
 
+  private @Nullable MavenHashPair probeHash(final AppConfiguration.EndpointConfiguration config, final URI jarUri, final AppConfiguration.EndpointConfiguration.Version version, final MavenHashType hashType) {
+    final URI hashUri = UriComponentsBuilder.fromUri(jarUri).replacePath(jarUri.getPath() + "." + hashType.extension()).build().toUri();
+    final RefreshStageEvent event = new RefreshStageEvent();
+    event.begin();
+    try {
+      final ResponseEntity<String> response = this.fetchText(hashUri);
+      final boolean found = response.getStatusCode().is2xxSuccessful() && response.getBody() != null;
+      commitStage(event, config, version, RefreshStageEvent.Stage.HASH_PROBE, hashUri, found);
+      if (found) {
+        LOGGER.debug("Downloaded hash for {}. Url: {} using hash type {}", config.name(), hashUri, hashType);
+        return new MavenHashPair(response.getBody(), hashType);
+      }
+      LOGGER.debug("Could not download {} hash for {}. Url: {}, Status code: {}", hashType, config.name(), hashUri, response.getStatusCode());
+    } catch (final Exception e) {
+      commitStage(event, config, version, RefreshStageEvent.Stage.HASH_PROBE, hashUri, false);
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("Could not download {} hash for {}. Url: {}, Exception: {}: {}", hashType, config.name(), hashUri, e.getClass().getName(), e.getMessage());
+      } else {
+        LOGGER.warn("Could not download {} hash for {}. Url: {}, Exception: {}", hashType, config.name(), hashUri, e.getClass().getName());
+      }
+    }
+    return null;
+  }
+
+  private static void commitStage(final RefreshStageEvent event, final AppConfiguration.EndpointConfiguration config, final AppConfiguration.EndpointConfiguration.Version version, final RefreshStageEvent.Stage stage, final URI uri, final boolean success) {
+    if (event.shouldCommit()) {
+      event.project = config.name();
+      event.version = version.name();
+      event.stage = stage.name();
+      event.uri = uri.toString();
+      event.success = success;
+      event.commit();
+    }
+  }
+
   @NullMarked
   public record MavenHashPair(
     String hash,
@@ -338,9 +1254,17 @@ public class JavadocService {
   ) {
   }
 
+  @NullMarked
+  private record Download(
+    HttpStatusCode status,
+    @Nullable HashCode hash
+  ) {
+  }
+
   @NullMarked
   record CachedLookup(
     @Nullable FileSystem fs,
+    @Nullable JavadocManifest manifest,
     @Nullable URI uri
   ) implements AutoCloseable {
     @Override
@@ -357,4 +1281,15 @@ public class JavadocService {
     @Nullable URI uri
   ) {
   }
+
+  // what became of a refresh asked for outside the schedule
+  public enum Refresh {
+    REFRESHED,
+    // upstream couldn't be checked
+    FAILED,
+    // another node is refreshing the version right now and may have started before the publication
+    LEASED,
+    // unknown here, nothing to download, or this node doesn't ingest
+    SKIPPED
+  }
 }
@@ -0,0 +1,116 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.seiama.javaducks.configuration.properties.RateLimitConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.stereotype.Service;
+
+// generic cell rate algorithm: every client has one timestamp per budget, the theoretical
+// arrival time of its next request, advanced with a CAS. nothing is locked on the request path
+@NullMarked
+@Service
+public class RateLimitService {
+  private static final String DEFAULT = "default";
+  private static final String OUTDATED = "outdated";
+  private final RateLimitConfiguration configuration;
+  private final Limit defaultLimit;
+  private final @Nullable Limit outdatedLimit;
+  private final Map<String, Limit> projectLimits = new HashMap<>();
+
+  public RateLimitService(final RateLimitConfiguration configuration, final MeterRegistry registry) {
+    this.configuration = configuration;
+    this.defaultLimit = new Limit(DEFAULT, configuration.defaultBudget(), configuration.maxClients(), registry);
+    this.outdatedLimit = configuration.outdated() != null ? new Limit(OUTDATED, configuration.outdated(), configuration.maxClients(), registry) : null;
+    configuration.projects().forEach((project, budget) -> this.projectLimits.put(project, new Limit(project, budget, configuration.maxClients(), registry)));
+  }
+
+  public boolean enabled() {
+    return this.configuration.enabled();
+  }
+
+  // returns 0 if the request may proceed, otherwise the nanoseconds until it would
+  public long acquire(final @Nullable String project, final boolean outdated, final String client) {
+    return this.limitFor(project, outdated).acquire(client);
+  }
+
+  private Limit limitFor(final @Nullable String project, final boolean outdated) {
+    if (outdated && this.outdatedLimit != null) {
+      return this.outdatedLimit;
+    }
+    final Limit limit = project != null ? this.projectLimits.get(project) : null;
+    return limit != null ? limit : this.defaultLimit;
+  }
+
+  @NullMarked
+  private static final class Limit {
+    private final long interval;
+    private final long tolerance;
+    private final Cache<String, AtomicLong> arrivals;
+    private final Counter allowed;
+    private final Counter rejected;
+
+    Limit(final String name, final RateLimitConfiguration.Budget budget, final int maxClients, final MeterRegistry registry) {
+      this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / budget.perSecond());
+      this.tolerance = this.interval * budget.burst();
+      // once the tolerance has passed the bucket is full again, forgetting the client is lossless
+      this.arrivals = Caffeine.newBuilder()
+        .maximumSize(maxClients)
+        .expireAfterAccess(Duration.ofNanos(Math.max(this.tolerance + this.interval, TimeUnit.MINUTES.toNanos(1))))
+        .build();
+      this.allowed = Counter.builder("javaducks.rate.limit.requests").tag("budget", name).tag("outcome", "allowed").register(registry);
+      this.rejected = Counter.builder("javaducks.rate.limit.requests").tag("budget", name).tag("outcome", "rejected").register(registry);
+      Gauge.builder("javaducks.rate.limit.clients", this.arrivals, Cache::estimatedSize).tag("budget", name).register(registry);
+    }
+
+    long acquire(final String client) {
+      final long now = System.nanoTime();
+      final AtomicLong arrival = this.arrivals.get(client, key -> new AtomicLong(now));
+      while (true) {
+        final long current = arrival.get();
+        final long next = Math.max(current, now) + this.interval;
+        final long wait = next - now - this.tolerance;
+        if (wait > 0) {
+          this.rejected.increment();
+          return wait;
+        }
+        if (arrival.compareAndSet(current, next)) {
+          this.allowed.increment();
+          return 0;
+        }
+      }
+    }
+  }
+}
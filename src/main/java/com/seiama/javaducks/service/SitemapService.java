@@ -0,0 +1,179 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service;
+
+import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.configuration.properties.SitemapConfiguration;
+import com.seiama.javaducks.service.javadoc.EndpointsChangedEvent;
+import com.seiama.javaducks.service.javadoc.JavadocInstalledEvent;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import com.seiama.javaducks.service.javadoc.injection.Injection;
+import com.seiama.javaducks.service.javadoc.sitemap.SitemapWriter;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+// sitemaps of the latest version of every project, so crawlers find the canonical pages
+// without walking the links of every old version
+@NullMarked
+@Service
+public class SitemapService {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SitemapService.class);
+  private final AppConfiguration configuration;
+  private final EndpointService endpoints;
+  private final SitemapConfiguration sitemap;
+  private final Map<String, ProjectSitemap> projects = new ConcurrentSkipListMap<>();
+  // bumped after every change to the projects, an index built from an older generation is never served
+  private final AtomicLong generation = new AtomicLong();
+  private volatile @Nullable SitemapIndex index;
+
+  @Autowired
+  public SitemapService(final AppConfiguration configuration, final EndpointService endpoints, final SitemapConfiguration sitemap) {
+    this.configuration = configuration;
+    this.endpoints = endpoints;
+    this.sitemap = sitemap;
+  }
+
+  @EventListener
+  public void onInstalled(final JavadocInstalledEvent event) {
+    final JavadocKey key = event.key();
+    final AppConfiguration.EndpointConfiguration endpoint = this.endpoints.endpoint(key.project());
+    if (!this.sitemap.enabled() || endpoint == null || !endpoint.versions().get(endpoint.versions().size() - 1).name().equals(key.version())) {
+      return;
+    }
+    try {
+      final List<String> locations = new ArrayList<>();
+      try (
+        final FileSystem fs = FileSystems.newFileSystem(event.jar());
+        final Stream<Path> entries = Files.walk(fs.getPath("/"))
+      ) {
+        final Iterator<Path> iterator = entries.sorted().iterator();
+        while (iterator.hasNext()) {
+          final String path = iterator.next().toString().substring(1);
+          if (isPage(path)) {
+            locations.add(this.location("%s/%s/%s".formatted(key.project(), key.version(), path)));
+          }
+        }
+      }
+      final List<byte[]> chunks = SitemapWriter.urlsets(locations, SitemapWriter.MAX_URLS);
+      this.projects.put(key.project(), new ProjectSitemap(key.version(), Files.getLastModifiedTime(event.jar()).toInstant(), chunks));
+      this.generation.incrementAndGet();
+      LOGGER.info("Built sitemap of {} pages in {} files for {} {}", locations.size(), chunks.size(), key.project(), key.version());
+    } catch (final IOException | RuntimeException e) {
+      LOGGER.warn("Could not build sitemap for {} {}. Exception: {}: {}", key.project(), key.version(), e.getClass().getName(), e.getMessage());
+    }
+  }
+
+  @EventListener
+  public void onEndpointsChanged(final EndpointsChangedEvent event) {
+    // a removed latest version leaves its project without a sitemap until the new latest is installed
+    if (this.projects.entrySet().removeIf(entry -> event.removed().contains(new JavadocKey(entry.getKey(), entry.getValue().version())))) {
+      this.generation.incrementAndGet();
+    }
+  }
+
+  public byte @Nullable [] index() {
+    if (!this.sitemap.enabled()) {
+      return null;
+    }
+    // read before the projects, a change during the build leaves this index outdated on arrival
+    final long generation = this.generation.get();
+    final SitemapIndex index = this.index;
+    if (index != null && index.generation() == generation) {
+      return index.bytes();
+    }
+    final List<SitemapWriter.Sitemap> sitemaps = new ArrayList<>();
+    this.projects.forEach((project, sitemap) -> {
+      for (int i = 1; i <= sitemap.chunks().size(); i++) {
+        sitemaps.add(new SitemapWriter.Sitemap(this.location(chunkName(project, i)), sitemap.lastModified()));
+      }
+    });
+    final byte[] bytes = SitemapWriter.index(sitemaps);
+    this.index = new SitemapIndex(generation, bytes);
+    return bytes;
+  }
+
+  // chunks are numbered from one
+  public byte @Nullable [] chunk(final String project, final int number) {
+    final ProjectSitemap sitemap = this.projects.get(project);
+    if (!this.sitemap.enabled() || sitemap == null || number < 1 || number > sitemap.chunks().size()) {
+      return null;
+    }
+    return sitemap.chunks().get(number - 1);
+  }
+
+  public String robots() {
+    final StringBuilder robots = new StringBuilder("User-agent: *\n");
+    if (this.sitemap.disallowOutdated()) {
+      for (final AppConfiguration.EndpointConfiguration endpoint : this.endpoints.endpoints()) {
+        for (int i = 0; i < endpoint.versions().size() - 1; i++) {
+          robots.append("Disallow: /").append(endpoint.name()).append('/').append(endpoint.versions().get(i).name()).append("/\n");
+        }
+      }
+    } else {
+      robots.append("Allow: /\n");
+    }
+    if (this.sitemap.enabled()) {
+      robots.append("\nSitemap: ").append(this.location("sitemap.xml")).append('\n');
+    }
+    return robots.toString();
+  }
+
+  private String location(final String path) {
+    return this.configuration.hostName().resolve(path).toString();
+  }
+
+  private static String chunkName(final String project, final int number) {
+    return "sitemap-%s-%d.xml.gz".formatted(project, number);
+  }
+
+  private static boolean isPage(final String path) {
+    return path.endsWith(Injection.HTML) && !path.contains("class-use/") && !path.startsWith("src-html/") && !path.startsWith("legal/");
+  }
+
+  @NullMarked
+  private record ProjectSitemap(String version, Instant lastModified, List<byte[]> chunks) {
+  }
+
+  @NullMarked
+  private record SitemapIndex(long generation, byte[] bytes) {
+  }
+}
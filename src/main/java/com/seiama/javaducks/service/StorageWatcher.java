@@ -0,0 +1,161 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service;
+
+import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.configuration.properties.ClusterConfiguration;
+import com.seiama.javaducks.service.javadoc.EndpointsChangedEvent;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import com.seiama.javaducks.service.javadoc.storage.JavadocManifest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+// reloads versions and full text segments another node installed into the shared storage. the manifest is written last,
+// so its appearance means the new jar is in place. the scheduled refresh also compares generations each
+// cycle for file systems that don't deliver events from other hosts
+@NullMarked
+@Service
+public class StorageWatcher {
+  private static final Logger LOGGER = LoggerFactory.getLogger(StorageWatcher.class);
+  private final AppConfiguration configuration;
+  private final EndpointService endpoints;
+  private final ClusterConfiguration cluster;
+  private final JavadocService service;
+  private final FullTextService fullText;
+  private volatile @Nullable WatchService watcher;
+
+  @Autowired
+  public StorageWatcher(final AppConfiguration configuration, final EndpointService endpoints, final ClusterConfiguration cluster, final JavadocService service, final FullTextService fullText) {
+    this.configuration = configuration;
+    this.endpoints = endpoints;
+    this.cluster = cluster;
+    this.service = service;
+    this.fullText = fullText;
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!this.cluster.storageShared()) {
+      return;
+    }
+    try {
+      final WatchService watcher = this.configuration.storage().getFileSystem().newWatchService();
+      for (final AppConfiguration.EndpointConfiguration endpoint : this.endpoints.endpoints()) {
+        this.register(watcher, endpoint.name());
+      }
+      this.watcher = watcher;
+      final Thread thread = new Thread(() -> this.watch(watcher), "javaducks-storage-watcher");
+      thread.setDaemon(true);
+      thread.start();
+    } catch (final IOException e) {
+      LOGGER.warn("Could not watch storage, changes from other nodes are picked up on refresh. Exception: {}: {}", e.getClass().getName(), e.getMessage());
+    }
+  }
+
+  // projects added by a reload need watching too, registering a directory again is harmless
+  @EventListener
+  public void onEndpointsChanged(final EndpointsChangedEvent event) {
+    final WatchService watcher = this.watcher;
+    if (watcher == null) {
+      return;
+    }
+    for (final JavadocKey key : event.added()) {
+      try {
+        this.register(watcher, key.project());
+      } catch (final IOException e) {
+        LOGGER.warn("Could not watch storage of {}, changes from other nodes are picked up on refresh. Exception: {}: {}", key.project(), e.getClass().getName(), e.getMessage());
+      }
+    }
+  }
+
+  private void register(final WatchService watcher, final String project) throws IOException {
+    final Path directory = this.configuration.storage().resolve(project);
+    Files.createDirectories(directory);
+    directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+  }
+
+  @PreDestroy
+  public void shutdown() throws IOException {
+    if (this.watcher != null) {
+      this.watcher.close();
+    }
+  }
+
+  private void watch(final WatchService watcher) {
+    try {
+      while (true) {
+        final WatchKey watchKey = watcher.take();
+        final String project = ((Path) watchKey.watchable()).getFileName().toString();
+        for (final WatchEvent<?> event : watchKey.pollEvents()) {
+          if (event.context() instanceof final Path file) {
+            final String name = file.getFileName().toString();
+            if (name.endsWith(JavadocManifest.EXTENSION)) {
+              final JavadocKey key = this.keyOf(project, name, JavadocManifest.EXTENSION);
+              if (key != null) {
+                this.reload(key);
+              }
+            } else if (name.endsWith(FullTextService.SOURCE_EXTENSION) && this.cluster.role() == ClusterConfiguration.Role.SERVE) {
+              // built by the ingest nodes after the install, the source is written after the segment
+              final JavadocKey key = this.keyOf(project, name, FullTextService.SOURCE_EXTENSION);
+              if (key != null) {
+                this.fullText.reload(key, this.configuration.storage().resolve(project).resolve(key.version() + ".jar"));
+              }
+            }
+          }
+        }
+        watchKey.reset();
+      }
+    } catch (final ClosedWatchServiceException | InterruptedException e) {
+      // shutting down
+    }
+  }
+
+  private @Nullable JavadocKey keyOf(final String project, final String name, final String extension) {
+    final String version = name.substring(0, name.length() - extension.length());
+    return this.endpoints.endpoint(project, version) != null ? new JavadocKey(project, version) : null;
+  }
+
+  private void reload(final JavadocKey key) {
+    try {
+      this.service.reload(key);
+    } catch (final RuntimeException e) {
+      LOGGER.warn("Could not reload javadoc for {} {}. Exception: {}: {}", key.project(), key.version(), e.getClass().getName(), e.getMessage());
+    }
+  }
+}
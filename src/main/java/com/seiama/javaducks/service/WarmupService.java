@@ -0,0 +1,193 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service;
+
+import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.configuration.properties.ClusterConfiguration;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import com.seiama.javaducks.service.javadoc.storage.WarmState;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.jspecify.annotations.NullMarked;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// opens and indexes what is already installed before traffic arrives. the application only reports
+// ready once runners finish, so the runner waits for the latest version of every project and leaves
+// the older versions, the pages that were hot before the restart and then the first refresh to the background
+@NullMarked
+@Service
+public class WarmupService implements ApplicationRunner {
+  private static final Logger LOGGER = LoggerFactory.getLogger(WarmupService.class);
+  private static final long SNAPSHOT_INTERVAL = 5; // in minutes
+  private static final int SNAPSHOT_PAGES = 1000;
+  // each role snapshots only what it owns, so serving and ingesting nodes on shared storage don't
+  // overwrite each other; nodes of the same role track much the same state and the last one wins
+  private final Path pagesFile;
+  private final Path scheduleFile;
+  private final ClusterConfiguration cluster;
+  private final EndpointService endpoints;
+  private final JavadocService service;
+  private final MeterRegistry registry;
+  private final Instant started = Instant.ofEpochMilli(ManagementFactory.getRuntimeMXBean().getStartTime());
+
+  @Autowired
+  public WarmupService(final AppConfiguration configuration, final ClusterConfiguration cluster, final EndpointService endpoints, final JavadocService service, final MeterRegistry registry) {
+    this.pagesFile = configuration.storage().resolve(".warm-pages");
+    this.scheduleFile = configuration.storage().resolve(".warm-schedule");
+    this.cluster = cluster;
+    this.endpoints = endpoints;
+    this.service = service;
+    this.registry = registry;
+    TimeGauge.builder("javaducks.startup.first.request", this, TimeUnit.MILLISECONDS, WarmupService::untilFirstRequest)
+      .description("Time from the start of the JVM until the first javadoc request was served")
+      .register(registry);
+  }
+
+  @Override
+  public void run(final ApplicationArguments args) {
+    final WarmState state = new WarmState(this.read(this.pagesFile).pages(), this.read(this.scheduleFile).checks());
+    this.service.restore(state);
+    final List<JavadocKey> hot = new ArrayList<>();
+    final List<JavadocKey> rest = new ArrayList<>();
+    for (final AppConfiguration.EndpointConfiguration endpoint : this.endpoints.endpoints()) {
+      final List<AppConfiguration.EndpointConfiguration.Version> versions = endpoint.versions();
+      for (int i = 0; i < versions.size(); i++) {
+        (i == versions.size() - 1 ? hot : rest).add(new JavadocKey(endpoint.name(), versions.get(i).name()));
+      }
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+      final Thread thread = new Thread(runnable, "javaducks-warmup");
+      thread.setDaemon(true);
+      return thread;
+    });
+    final long start = System.nanoTime();
+    final CompletableFuture<Void> hotWarm = this.warm(hot, executor);
+    final CompletableFuture<Void> restWarm = this.warm(rest, executor);
+    hotWarm.join();
+    this.record("hot", start, hot.size());
+    // async on the pool, when the rest is already warm the first refresh mustn't run here and hold up readiness
+    restWarm.thenComposeAsync(ignored -> {
+      this.record("all", start, hot.size() + rest.size());
+      return CompletableFuture.allOf(state.pages().stream()
+        .map(page -> CompletableFuture.runAsync(() -> this.service.prefetch(page.key(), page.path()), executor))
+        .toArray(CompletableFuture[]::new));
+    }, executor).whenCompleteAsync((result, failure) -> {
+      this.record("pages", start, state.pages().size());
+      try {
+        this.service.warmed();
+      } finally {
+        executor.shutdown();
+      }
+    }, executor);
+  }
+
+  @Scheduled(
+    initialDelay = SNAPSHOT_INTERVAL,
+    fixedRate = SNAPSHOT_INTERVAL,
+    timeUnit = TimeUnit.MINUTES
+  )
+  public void snapshot() {
+    final WarmState state = this.service.warmState(SNAPSHOT_PAGES);
+    if (this.cluster.role().serves()) {
+      this.write(new WarmState(state.pages(), Map.of()), this.pagesFile);
+    }
+    if (this.cluster.role().ingests()) {
+      this.write(new WarmState(List.of(), state.checks()), this.scheduleFile);
+    }
+  }
+
+  // a rolling deploy stops the old node right before the new one starts
+  @PreDestroy
+  public void shutdown() {
+    this.snapshot();
+  }
+
+  private void write(final WarmState state, final Path file) {
+    try {
+      Files.createDirectories(file.getParent());
+      state.write(file);
+    } catch (final IOException e) {
+      LOGGER.warn("Could not store warm state in {}. Exception: {}: {}", file, e.getClass().getName(), e.getMessage());
+    }
+  }
+
+  private WarmState read(final Path file) {
+    try {
+      return WarmState.read(file);
+    } catch (final IOException e) {
+      LOGGER.warn("Could not read warm state from {}. Exception: {}: {}", file, e.getClass().getName(), e.getMessage());
+      return WarmState.EMPTY;
+    }
+  }
+
+  private CompletableFuture<Void> warm(final List<JavadocKey> keys, final ExecutorService executor) {
+    return CompletableFuture.allOf(keys.stream()
+      .map(key -> CompletableFuture.runAsync(() -> this.warm(key), executor))
+      .toArray(CompletableFuture[]::new));
+  }
+
+  private void warm(final JavadocKey key) {
+    try {
+      this.service.warm(key);
+    } catch (final RuntimeException e) {
+      LOGGER.warn("Could not warm javadoc for {} {}. Exception: {}: {}", key.project(), key.version(), e.getClass().getName(), e.getMessage());
+    }
+  }
+
+  private void record(final String stage, final long start, final int count) {
+    final long elapsed = System.nanoTime() - start;
+    Timer.builder("javaducks.startup.warmup")
+      .description("Time to open and index the installed versions and prefetch the hot pages on startup")
+      .tag("stage", stage)
+      .register(this.registry)
+      .record(elapsed, TimeUnit.NANOSECONDS);
+    LOGGER.info("Warmup of {} ({}) done after {} ms", stage, count, TimeUnit.NANOSECONDS.toMillis(elapsed));
+  }
+
+  private double untilFirstRequest() {
+    final Instant firstServed = this.service.firstServed();
+    return firstServed != null ? Duration.between(this.started, firstServed).toMillis() : Double.NaN;
+  }
+}
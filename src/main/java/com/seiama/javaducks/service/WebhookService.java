@@ -0,0 +1,121 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service;
+
+import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.configuration.properties.WebhookConfiguration;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+// refreshes the versions a repository manager or CI tells us were just published,
+// a burst of notifications for the same version results in a single refresh
+@NullMarked
+@Service
+public class WebhookService {
+  private static final Logger LOGGER = LoggerFactory.getLogger(WebhookService.class);
+  // a lease is only held while a refresh runs, a few tries cover even a slow download
+  private static final int LEASE_ATTEMPTS = 6;
+  private final EndpointService endpoints;
+  private final Duration coalesce;
+  private final Duration leaseRetry;
+  private final Function<JavadocKey, JavadocService.Refresh> refresher;
+  private final Set<JavadocKey> pending = ConcurrentHashMap.newKeySet();
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    final Thread thread = new Thread(runnable, "javaducks-webhook");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  @Autowired
+  public WebhookService(final EndpointService endpoints, final WebhookConfiguration webhook, final JavadocService service) {
+    this(endpoints, webhook.coalesce(), webhook.leaseRetry(), service::refresh);
+  }
+
+  WebhookService(final EndpointService endpoints, final Duration coalesce, final Duration leaseRetry, final Function<JavadocKey, JavadocService.Refresh> refresher) {
+    this.endpoints = endpoints;
+    this.coalesce = coalesce;
+    this.leaseRetry = leaseRetry;
+    this.refresher = refresher;
+  }
+
+  // returns the versions that will be refreshed
+  public Set<JavadocKey> published(final String group, final String artifact, final @Nullable String version) {
+    final Set<JavadocKey> keys = new LinkedHashSet<>();
+    for (final AppConfiguration.EndpointConfiguration endpoint : this.endpoints.endpoints()) {
+      for (final AppConfiguration.EndpointConfiguration.Version candidate : endpoint.versions()) {
+        if (candidate.publishes(group, artifact, version)) {
+          keys.add(new JavadocKey(endpoint.name(), candidate.name()));
+        }
+      }
+    }
+    for (final JavadocKey key : keys) {
+      // a refresh already waiting will see this publication too
+      if (this.pending.add(key)) {
+        this.executor.schedule(() -> this.refresh(key, 1), this.coalesce.toMillis(), TimeUnit.MILLISECONDS);
+      }
+    }
+    return keys;
+  }
+
+  private void refresh(final JavadocKey key, final int attempt) {
+    // taken off before refreshing so a publication during the refresh schedules another one
+    this.pending.remove(key);
+    try {
+      switch (this.refresher.apply(key)) {
+        case REFRESHED -> LOGGER.info("Refreshed javadoc for {} {} on notification", key.project(), key.version());
+        case FAILED -> LOGGER.warn("Could not refresh javadoc for {} {} on notification, upstream couldn't be checked", key.project(), key.version());
+        case SKIPPED -> LOGGER.debug("Did not refresh javadoc for {} {} on notification, this node doesn't ingest it", key.project(), key.version());
+        case LEASED -> {
+          // the other node's refresh may have looked before the publication, check again once it is done
+          if (attempt >= LEASE_ATTEMPTS) {
+            LOGGER.warn("Gave up refreshing javadoc for {} {} on notification, another node kept refreshing it", key.project(), key.version());
+          } else if (this.pending.add(key)) {
+            this.executor.schedule(() -> this.refresh(key, attempt + 1), this.leaseRetry.toMillis(), TimeUnit.MILLISECONDS);
+          }
+        }
+      }
+    } catch (final RuntimeException e) {
+      LOGGER.warn("Could not refresh javadoc for {} {} on notification. Exception: {}: {}", key.project(), key.version(), e.getClass().getName(), e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    this.executor.shutdownNow();
+  }
+}
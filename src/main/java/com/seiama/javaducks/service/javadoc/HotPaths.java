@@ -0,0 +1,96 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.jspecify.annotations.NullMarked;
+
+// approximate request counts per page, to know what to prefetch after a restart. pages beyond the
+// capacity aren't counted, halving the counts on every snapshot makes room for new favourites
+@NullMarked
+public final class HotPaths {
+  private final int capacity;
+  private final Map<Page, LongAdder> counts = new ConcurrentHashMap<>();
+
+  public HotPaths(final int capacity) {
+    this.capacity = capacity;
+  }
+
+  public void record(final JavadocKey key, final String path) {
+    final Page page = new Page(key, path);
+    LongAdder count = this.counts.get(page);
+    if (count == null) {
+      if (this.counts.size() >= this.capacity) {
+        return;
+      }
+      count = this.counts.computeIfAbsent(page, ignored -> new LongAdder());
+    }
+    count.increment();
+  }
+
+  public void restore(final Hit hit) {
+    if (this.counts.size() < this.capacity) {
+      this.counts.computeIfAbsent(new Page(hit.key(), hit.path()), ignored -> new LongAdder()).add(hit.count());
+    }
+  }
+
+  public List<Hit> top(final int limit) {
+    return this.counts.entrySet().stream()
+      .map(entry -> new Hit(entry.getKey().key(), entry.getKey().path(), entry.getValue().sum()))
+      .sorted(Comparator.comparingLong(Hit::count).reversed())
+      .limit(limit)
+      .toList();
+  }
+
+  public void decay() {
+    this.counts.entrySet().removeIf(entry -> {
+      final long count = entry.getValue().sumThenReset() / 2;
+      entry.getValue().add(count);
+      return count == 0;
+    });
+  }
+
+  public void forget(final JavadocKey key) {
+    this.counts.keySet().removeIf(page -> page.key().equals(key));
+  }
+
+  @NullMarked
+  public record Hit(
+    JavadocKey key,
+    String path,
+    long count
+  ) {
+  }
+
+  @NullMarked
+  private record Page(
+    JavadocKey key,
+    String path
+  ) {
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc;
+
+import com.seiama.javaducks.configuration.properties.ServingConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// bounds how many requests inject html at once so passthrough requests always find a worker.
+// the limit follows the measured injection latency: it grows by one per limit's worth of fast
+// injections and shrinks by a tenth whenever one exceeds the target
+@Component
+@NullMarked
+public class InjectionBulkhead {
+  private static final double BACKOFF = 0.9;
+  private final ServingConfiguration.InjectionBulkhead configuration;
+  private final long targetLatency;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final @Nullable Counter shed;
+  private volatile double limit;
+
+  @Autowired
+  public InjectionBulkhead(final ServingConfiguration serving, final MeterRegistry registry) {
+    this(serving.injectionBulkhead(), registry);
+  }
+
+  InjectionBulkhead(final ServingConfiguration.InjectionBulkhead configuration, final @Nullable MeterRegistry registry) {
+    this.configuration = configuration;
+    this.targetLatency = configuration.targetLatency().toNanos();
+    this.limit = configuration.initialLimit();
+    if (registry != null) {
+      Gauge.builder("javaducks.injection.limit", this, bulkhead -> bulkhead.limit).register(registry);
+      Gauge.builder("javaducks.injection.in.flight", this.inFlight, AtomicInteger::get).register(registry);
+      this.shed = Counter.builder("javaducks.injection.shed").register(registry);
+    } else {
+      this.shed = null;
+    }
+  }
+
+  public boolean tryAcquire() {
+    if (!this.configuration.enabled()) {
+      return true;
+    }
+    while (true) {
+      final int current = this.inFlight.get();
+      if (current >= (int) this.limit) {
+        if (this.shed != null) {
+          this.shed.increment();
+        }
+        return false;
+      }
+      if (this.inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  public void release(final long startNanos) {
+    if (!this.configuration.enabled()) {
+      return;
+    }
+    this.inFlight.decrementAndGet();
+    final long latency = System.nanoTime() - startNanos;
+    synchronized (this) {
+      if (latency > this.targetLatency) {
+        this.limit = Math.max(this.configuration.minLimit(), this.limit * BACKOFF);
+      } else {
+        this.limit = Math.min(this.configuration.maxLimit(), this.limit + 1 / this.limit);
+      }
+    }
+  }
+
+  public ServingConfiguration.InjectionBulkhead.Overload overload() {
+    return this.configuration.overload();
+  }
+
+  public Duration retryAfter() {
+    return this.configuration.retryAfter();
+  }
+
+  int limit() {
+    return (int) this.limit;
+  }
+}
@@ -23,8 +23,21 @@
  */
 package com.seiama.javaducks.service.javadoc;
 
+import com.google.common.io.CountingOutputStream;
+import com.seiama.javaducks.configuration.properties.ServingConfiguration;
+import com.seiama.javaducks.jfr.InjectionEvent;
 import com.seiama.javaducks.service.javadoc.injection.Injection;
+import com.seiama.javaducks.util.exception.OverloadedException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
@@ -40,30 +53,172 @@ import org.springframework.web.server.ResponseStatusException;
 @Service
 public class JavadocInjector {
   private static final Logger LOGGER = LoggerFactory.getLogger(JavadocInjector.class);
+  // pages up to this size are injected into memory inside the slot and sent after it is released
+  private static final long MAX_BUFFERED = 4L * 1024 * 1024;
 
   private final List<Injection> injections;
+  private final InjectionBulkhead bulkhead;
 
-  public JavadocInjector(final List<Injection> injections) {
+  public JavadocInjector(final List<Injection> injections, final InjectionBulkhead bulkhead) {
     this.injections = injections;
+    this.bulkhead = bulkhead;
   }
 
   public Object runInjections(final Path file, final JavadocKey key) {
+    final InjectionEvent event = new InjectionEvent();
+    event.begin();
     final List<Injection> applicableInjections = this.injections.stream().filter(injection -> injection.canInject(file, key)).toList();
     if (applicableInjections.isEmpty()) {
-      return new FileSystemResource(file);
+      final FileSystemResource resource = new FileSystemResource(file);
+      if (event.shouldCommit()) {
+        final long size = this.size(file);
+        commit(event, file, key, 0, size, size);
+      }
+      return resource;
+    }
+    if (!this.bulkhead.tryAcquire()) {
+      return this.shed(file);
     }
 
+    final long start = System.nanoTime();
     try (final Stream<String> lines = Files.lines(file)) {
-      return lines.map(l -> {
+      final String result = lines.map(l -> {
         String line = l;
         for (final Injection injection : applicableInjections) {
           line = injection.inject(line, file, key);
         }
         return line;
       }).collect(Collectors.joining("\n"));
+      if (event.shouldCommit()) {
+        commit(event, file, key, applicableInjections.size(), this.size(file), result.getBytes(StandardCharsets.UTF_8).length);
+      }
+      return result;
     } catch (final IOException e) {
       LOGGER.error("Could not read file", e);
       throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Could not read file");
+    } finally {
+      this.bulkhead.release(start);
+    }
+  }
+
+  private FileSystemResource shed(final Path file) {
+    if (this.bulkhead.overload() == ServingConfiguration.InjectionBulkhead.Overload.PASSTHROUGH) {
+      return new FileSystemResource(file);
+    }
+    throw new OverloadedException("Too many pages are being prepared", this.bulkhead.retryAfter());
+  }
+
+  public List<Injection> injectionsFor(final Path file, final JavadocKey key) {
+    return this.injections.stream().filter(injection -> injection.canInject(file, key)).toList();
+  }
+
+  // writes the injected file line by line instead of building it in memory first
+  public void transferInjected(final Path file, final JavadocKey key, final List<Injection> injections, final OutputStream output) throws IOException {
+    if (!this.bulkhead.tryAcquire()) {
+      try (final InputStream input = this.shed(file).getInputStream()) {
+        input.transferTo(output);
+      }
+      return;
+    }
+    final long start = System.nanoTime();
+    final long size = this.size(file);
+    if (size >= 0 && size <= MAX_BUFFERED) {
+      final ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) size);
+      try {
+        this.transfer(file, key, injections, buffer);
+      } finally {
+        this.bulkhead.release(start);
+      }
+      // a slow client holds up its own connection, not a slot, and the limit only sees the injection like on the buffered path
+      buffer.writeTo(output);
+      return;
+    }
+    // too large to hold, the time spent writing to the client is left out of the latency sample
+    final TimedOutputStream timed = new TimedOutputStream(output);
+    try {
+      this.transfer(file, key, injections, timed);
+    } finally {
+      this.bulkhead.release(start + timed.nanos);
+    }
+  }
+
+  private void transfer(final Path file, final JavadocKey key, final List<Injection> injections, final OutputStream output) throws IOException {
+    final InjectionEvent event = new InjectionEvent();
+    event.begin();
+    final CountingOutputStream counting = new CountingOutputStream(output);
+    final Writer writer = new BufferedWriter(new OutputStreamWriter(counting, StandardCharsets.UTF_8));
+    try (final BufferedReader reader = Files.newBufferedReader(file)) {
+      String line = reader.readLine();
+      while (line != null) {
+        for (final Injection injection : injections) {
+          line = injection.inject(line, file, key);
+        }
+        writer.write(line);
+        line = reader.readLine();
+        if (line != null) {
+          writer.write('\n');
+        }
+      }
+    }
+    writer.flush();
+    if (event.shouldCommit()) {
+      commit(event, file, key, injections.size(), this.size(file), counting.getCount());
+    }
+  }
+
+  private static final class TimedOutputStream extends FilterOutputStream {
+    private long nanos;
+
+    TimedOutputStream(final OutputStream output) {
+      super(output);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      final long start = System.nanoTime();
+      try {
+        this.out.write(b);
+      } finally {
+        this.nanos += System.nanoTime() - start;
+      }
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      final long start = System.nanoTime();
+      try {
+        this.out.write(b, off, len);
+      } finally {
+        this.nanos += System.nanoTime() - start;
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      final long start = System.nanoTime();
+      try {
+        this.out.flush();
+      } finally {
+        this.nanos += System.nanoTime() - start;
+      }
     }
   }
+
+  private long size(final Path file) {
+    try {
+      return Files.size(file);
+    } catch (final IOException e) {
+      return -1;
+    }
+  }
+
+  private static void commit(final InjectionEvent event, final Path file, final JavadocKey key, final int injections, final long bytesIn, final long bytesOut) {
+    event.project = key.project();
+    event.version = key.version();
+    event.path = file.toString();
+    event.injections = injections;
+    event.bytesIn = bytesIn;
+    event.bytesOut = bytesOut;
+    event.commit();
+  }
 }
@@ -0,0 +1,146 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc;
+
+import com.seiama.javaducks.configuration.properties.UpstreamConfiguration;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// when to look at each version again: the interval halves when a check finds a new jar and grows
+// by half when it doesn't, within the configured bounds. jitter keeps versions that were added
+// together from being checked together forever
+@NullMarked
+public final class RefreshSchedule {
+  private static final double BACKOFF = 1.5;
+  private final UpstreamConfiguration.Schedule configuration;
+  private final Map<JavadocKey, Entry> entries = new ConcurrentHashMap<>();
+
+  public RefreshSchedule(final UpstreamConfiguration.Schedule configuration) {
+    this.configuration = configuration;
+  }
+
+  public boolean due(final JavadocKey key, final Instant now) {
+    final Entry entry = this.entries.get(key);
+    return entry == null || !now.isBefore(entry.nextCheck);
+  }
+
+  // a check installed a new jar
+  public void changed(final JavadocKey key, final Instant now) {
+    this.entries.computeIfAbsent(key, ignored -> new Entry(this.configuration.initialInterval(), now)).changed(now);
+  }
+
+  // a dormant version (a release that is installed) can't change, it is only looked at rarely
+  public Instant checked(final JavadocKey key, final Instant now, final boolean dormant) {
+    final Entry entry = this.entries.computeIfAbsent(key, ignored -> new Entry(this.configuration.initialInterval(), now));
+    synchronized (entry) {
+      final Duration interval;
+      if (dormant) {
+        interval = this.configuration.maxInterval();
+      } else if (entry.changedSinceCheck) {
+        interval = entry.interval.dividedBy(2);
+      } else {
+        interval = Duration.ofMillis((long) (entry.interval.toMillis() * BACKOFF));
+      }
+      entry.interval = clamp(interval, this.configuration.minInterval(), this.configuration.maxInterval());
+      entry.changedSinceCheck = false;
+      entry.nextCheck = now.plusMillis((long) (entry.interval.toMillis() * (1 + this.jitter())));
+      return entry.nextCheck;
+    }
+  }
+
+  // a check that couldn't reach upstream is retried soon and leaves the interval as it was, an outage
+  // says nothing about how often the version changes
+  public Instant failed(final JavadocKey key, final Instant now) {
+    final Entry entry = this.entries.computeIfAbsent(key, ignored -> new Entry(this.configuration.initialInterval(), now));
+    synchronized (entry) {
+      entry.nextCheck = now.plusMillis((long) (this.configuration.minInterval().toMillis() * (1 + this.jitter())));
+      return entry.nextCheck;
+    }
+  }
+
+  // a check remembered from before a restart, what was learned since takes precedence
+  public void restore(final JavadocKey key, final Check check) {
+    final Entry entry = new Entry(check.interval(), check.nextCheck());
+    entry.lastChange = check.lastChange();
+    this.entries.putIfAbsent(key, entry);
+  }
+
+  // the version was removed, or now points elsewhere and is due again
+  public void forget(final JavadocKey key) {
+    this.entries.remove(key);
+  }
+
+  public Map<JavadocKey, Check> checks() {
+    final Map<JavadocKey, Check> checks = new TreeMap<>((left, right) -> left.project().equals(right.project()) ? left.version().compareTo(right.version()) : left.project().compareTo(right.project()));
+    this.entries.forEach((key, entry) -> {
+      synchronized (entry) {
+        checks.put(key, new Check(entry.nextCheck, entry.interval, entry.lastChange));
+      }
+    });
+    return checks;
+  }
+
+  private double jitter() {
+    return this.configuration.jitter() * (ThreadLocalRandom.current().nextDouble() * 2 - 1);
+  }
+
+  private static Duration clamp(final Duration interval, final Duration min, final Duration max) {
+    if (interval.compareTo(min) < 0) {
+      return min;
+    }
+    return interval.compareTo(max) > 0 ? max : interval;
+  }
+
+  @NullMarked
+  public record Check(
+    Instant nextCheck,
+    Duration interval,
+    @Nullable Instant lastChange
+  ) {
+  }
+
+  @NullMarked
+  private static final class Entry {
+    private Duration interval;
+    private Instant nextCheck;
+    private @Nullable Instant lastChange;
+    private boolean changedSinceCheck;
+
+    Entry(final Duration interval, final Instant now) {
+      this.interval = interval;
+      this.nextCheck = now;
+    }
+
+    synchronized void changed(final Instant now) {
+      this.lastChange = now;
+      this.changedSinceCheck = true;
+    }
+  }
+}
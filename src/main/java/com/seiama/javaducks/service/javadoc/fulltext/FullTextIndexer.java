@@ -0,0 +1,112 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.fulltext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.jspecify.annotations.NullMarked;
+
+// extracts the doc comment bodies of class and package pages
+@NullMarked
+public final class FullTextIndexer {
+  private static final Pattern TITLE_PATTERN = Pattern.compile("<title>(.*?)</title>", Pattern.DOTALL);
+  private static final Pattern BLOCK_PATTERN = Pattern.compile("<div class=\"block\"");
+  private static final Pattern DIV_PATTERN = Pattern.compile("<div\\b|</div>");
+  private static final Pattern MARKUP_PATTERN = Pattern.compile("<[^>]*>|&#?[a-zA-Z0-9]+;");
+  private static final String PACKAGE_SUMMARY = "package-summary.html";
+
+  private FullTextIndexer() {
+  }
+
+  public static int index(final Path root, final Path segment) throws IOException {
+    final FullTextSegmentWriter writer = new FullTextSegmentWriter();
+    try (final Stream<Path> files = Files.walk(root)) {
+      final Iterator<Path> iterator = files.filter(FullTextIndexer::isIndexed).sorted().iterator();
+      while (iterator.hasNext()) {
+        final Path file = iterator.next();
+        final String html = Files.readString(file, StandardCharsets.UTF_8);
+        final String relative = root.relativize(file).toString();
+        writer.add(relative, title(html, relative), FullTextTokenizer.tokenize(text(html)));
+      }
+    }
+    writer.write(segment);
+    return writer.documents();
+  }
+
+  // class pages are named after the class, everything else javadoc generates is lower-cased or hyphenated
+  static boolean isIndexed(final Path file) {
+    final Path name = file.getFileName();
+    if (name == null) {
+      return false;
+    }
+    final String fileName = name.toString();
+    if (fileName.equals(PACKAGE_SUMMARY)) {
+      return true;
+    }
+    if (!fileName.endsWith(".html") || fileName.indexOf('-') != -1 || !Character.isUpperCase(fileName.charAt(0))) {
+      return false;
+    }
+    for (final Path part : file) {
+      final String directory = part.toString();
+      if (directory.equals("class-use") || directory.equals("src-html")) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static String title(final String html, final String fallback) {
+    final Matcher matcher = TITLE_PATTERN.matcher(html);
+    return matcher.find() ? MARKUP_PATTERN.matcher(matcher.group(1)).replaceAll("").trim() : fallback;
+  }
+
+  static String text(final String html) {
+    final StringBuilder text = new StringBuilder();
+    final Matcher block = BLOCK_PATTERN.matcher(html);
+    int from = 0;
+    while (block.find(from)) {
+      // find the matching closing tag, blocks may contain nested divs
+      final Matcher div = DIV_PATTERN.matcher(html);
+      int depth = 0;
+      int end = html.length();
+      div.region(block.start(), html.length());
+      while (div.find()) {
+        depth += div.group().equals("</div>") ? -1 : 1;
+        if (depth == 0) {
+          end = div.end();
+          break;
+        }
+      }
+      text.append(MARKUP_PATTERN.matcher(html.substring(block.start(), end)).replaceAll(" ")).append('\n');
+      from = end;
+    }
+    return text.toString();
+  }
+}
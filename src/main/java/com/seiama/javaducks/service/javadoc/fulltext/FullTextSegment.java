@@ -0,0 +1,176 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.fulltext;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.jspecify.annotations.NullMarked;
+
+// a memory-mapped inverted index of one javadoc version. layout, all big endian:
+// header | document table (path, title, length) | term table (term, document frequency,
+// postings offset, postings length) sorted by term bytes | strings | postings
+@NullMarked
+public final class FullTextSegment {
+  static final int MAGIC = 0x4A444654; // JDFT
+  static final int FORMAT = 1;
+  static final int HEADER_SIZE = 40;
+  static final int DOCUMENT_ENTRY_SIZE = 12;
+  static final int TERM_ENTRY_SIZE = 16;
+  // bm25 parameters
+  private static final float K1 = 1.2f;
+  private static final float B = 0.75f;
+  private final ByteBuffer buffer;
+  private final int documents;
+  private final int terms;
+  private final int documentTable;
+  private final int termTable;
+  private final float averageLength;
+
+  private FullTextSegment(final ByteBuffer buffer) throws IOException {
+    if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) {
+      throw new IOException("Not a full text segment");
+    }
+    this.buffer = buffer;
+    this.documents = buffer.getInt(8);
+    this.terms = buffer.getInt(12);
+    this.documentTable = buffer.getInt(16);
+    this.termTable = buffer.getInt(20);
+    this.averageLength = this.documents == 0 ? 0 : (float) buffer.getLong(32) / this.documents;
+  }
+
+  public static FullTextSegment open(final Path file) throws IOException {
+    // the mapping stays valid after the channel is closed
+    try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return new FullTextSegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  public int documents() {
+    return this.documents;
+  }
+
+  public List<FullTextResult> search(final String query, final int limit) {
+    final LinkedHashSet<String> terms = new LinkedHashSet<>(FullTextTokenizer.tokenize(query));
+    if (terms.isEmpty() || limit <= 0 || this.documents == 0) {
+      return List.of();
+    }
+    final float[] scores = new float[this.documents];
+    for (final String term : terms) {
+      final int index = this.findTerm(term.getBytes(StandardCharsets.UTF_8));
+      if (index >= 0) {
+        this.score(index, scores);
+      }
+    }
+    final PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, Comparator.<Integer>comparingDouble(document -> scores[document]));
+    for (int document = 0; document < scores.length; document++) {
+      if (scores[document] > 0) {
+        best.add(document);
+        if (best.size() > limit) {
+          best.poll();
+        }
+      }
+    }
+    final List<FullTextResult> results = new ArrayList<>(best.size());
+    while (!best.isEmpty()) {
+      final int document = best.poll();
+      final int entry = this.documentTable + document * DOCUMENT_ENTRY_SIZE;
+      results.add(new FullTextResult(this.string(this.buffer.getInt(entry)), this.string(this.buffer.getInt(entry + 4)), scores[document]));
+    }
+    Collections.reverse(results);
+    return results;
+  }
+
+  private void score(final int term, final float[] scores) {
+    final int entry = this.termTable + term * TERM_ENTRY_SIZE;
+    final int frequency = this.buffer.getInt(entry + 4);
+    final float idf = (float) Math.log(1 + (this.documents - frequency + 0.5) / (frequency + 0.5));
+    int position = this.buffer.getInt(entry + 8);
+    final int end = position + this.buffer.getInt(entry + 12);
+    int document = 0;
+    while (position < end) {
+      int delta = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = this.buffer.get(position++);
+        delta |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      int occurrences = 0;
+      shift = 0;
+      do {
+        b = this.buffer.get(position++);
+        occurrences |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      document += delta;
+      final int length = this.buffer.getInt(this.documentTable + document * DOCUMENT_ENTRY_SIZE + 8);
+      scores[document] += idf * occurrences * (K1 + 1) / (occurrences + K1 * (1 - B + B * length / this.averageLength));
+    }
+  }
+
+  private int findTerm(final byte[] term) {
+    int low = 0;
+    int high = this.terms - 1;
+    while (low <= high) {
+      final int middle = low + high >>> 1;
+      final int comparison = this.compare(this.buffer.getInt(this.termTable + middle * TERM_ENTRY_SIZE), term);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  private int compare(final int offset, final byte[] term) {
+    final int length = this.buffer.getInt(offset);
+    for (int i = 0, max = Math.min(length, term.length); i < max; i++) {
+      final int comparison = Byte.compareUnsigned(this.buffer.get(offset + 4 + i), term[i]);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return Integer.compare(length, term.length);
+  }
+
+  private String string(final int offset) {
+    final byte[] bytes = new byte[this.buffer.getInt(offset)];
+    this.buffer.get(offset + 4, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
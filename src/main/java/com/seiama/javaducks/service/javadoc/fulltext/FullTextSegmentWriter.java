@@ -0,0 +1,160 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.fulltext;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jspecify.annotations.NullMarked;
+
+// collects tokenized documents and writes them as a FullTextSegment
+@NullMarked
+public final class FullTextSegmentWriter {
+  private final List<Document> documents = new ArrayList<>();
+  private final Map<String, Postings> terms = new HashMap<>();
+  private long totalTokens;
+
+  public void add(final String path, final String title, final List<String> tokens) {
+    final int document = this.documents.size();
+    this.documents.add(new Document(path, title, tokens.size()));
+    this.totalTokens += tokens.size();
+    final Map<String, Integer> frequencies = new HashMap<>();
+    for (final String token : tokens) {
+      frequencies.merge(token, 1, Integer::sum);
+    }
+    for (final Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+      this.terms.computeIfAbsent(entry.getKey(), key -> new Postings()).add(document, entry.getValue());
+    }
+  }
+
+  public int documents() {
+    return this.documents.size();
+  }
+
+  public void write(final Path file) throws IOException {
+    final List<byte[]> sortedTerms = new ArrayList<>(this.terms.size());
+    for (final String term : this.terms.keySet()) {
+      sortedTerms.add(term.getBytes(StandardCharsets.UTF_8));
+    }
+    sortedTerms.sort(Arrays::compareUnsigned);
+
+    final ByteArrayOutputStream strings = new ByteArrayOutputStream();
+    final int[] documentStrings = new int[this.documents.size() * 2];
+    for (int i = 0; i < this.documents.size(); i++) {
+      documentStrings[i * 2] = writeString(strings, this.documents.get(i).path().getBytes(StandardCharsets.UTF_8));
+      documentStrings[i * 2 + 1] = writeString(strings, this.documents.get(i).title().getBytes(StandardCharsets.UTF_8));
+    }
+    final int[] termStrings = new int[sortedTerms.size()];
+    for (int i = 0; i < sortedTerms.size(); i++) {
+      termStrings[i] = writeString(strings, sortedTerms.get(i));
+    }
+
+    final int documentTable = FullTextSegment.HEADER_SIZE;
+    final int termTable = documentTable + this.documents.size() * FullTextSegment.DOCUMENT_ENTRY_SIZE;
+    final int stringsOffset = termTable + sortedTerms.size() * FullTextSegment.TERM_ENTRY_SIZE;
+    final int postingsOffset = stringsOffset + strings.size();
+
+    try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      output.writeInt(FullTextSegment.MAGIC);
+      output.writeInt(FullTextSegment.FORMAT);
+      output.writeInt(this.documents.size());
+      output.writeInt(sortedTerms.size());
+      output.writeInt(documentTable);
+      output.writeInt(termTable);
+      output.writeInt(stringsOffset);
+      output.writeInt(postingsOffset);
+      output.writeLong(this.totalTokens);
+      for (int i = 0; i < this.documents.size(); i++) {
+        output.writeInt(stringsOffset + documentStrings[i * 2]);
+        output.writeInt(stringsOffset + documentStrings[i * 2 + 1]);
+        output.writeInt(this.documents.get(i).length());
+      }
+      int postings = postingsOffset;
+      for (int i = 0; i < sortedTerms.size(); i++) {
+        final Postings termPostings = this.terms.get(new String(sortedTerms.get(i), StandardCharsets.UTF_8));
+        output.writeInt(stringsOffset + termStrings[i]);
+        output.writeInt(termPostings.documents);
+        output.writeInt(postings);
+        output.writeInt(termPostings.size);
+        postings += termPostings.size;
+      }
+      strings.writeTo(output);
+      for (final byte[] term : sortedTerms) {
+        final Postings termPostings = this.terms.get(new String(term, StandardCharsets.UTF_8));
+        output.write(termPostings.bytes, 0, termPostings.size);
+      }
+    }
+  }
+
+  private static int writeString(final ByteArrayOutputStream strings, final byte[] bytes) {
+    final int offset = strings.size();
+    strings.write(bytes.length >>> 24);
+    strings.write(bytes.length >>> 16);
+    strings.write(bytes.length >>> 8);
+    strings.write(bytes.length);
+    strings.writeBytes(bytes);
+    return offset;
+  }
+
+  @NullMarked
+  private record Document(String path, String title, int length) {
+  }
+
+  // delta encoded document ids and term frequencies as varints
+  @NullMarked
+  private static final class Postings {
+    private byte[] bytes = new byte[8];
+    private int size;
+    private int documents;
+    private int lastDocument;
+
+    void add(final int document, final int frequency) {
+      this.writeVarInt(document - this.lastDocument);
+      this.writeVarInt(frequency);
+      this.lastDocument = document;
+      this.documents++;
+    }
+
+    private void writeVarInt(final int value) {
+      if (this.size + 5 > this.bytes.length) {
+        this.bytes = Arrays.copyOf(this.bytes, this.bytes.length * 2);
+      }
+      int remaining = value;
+      while ((remaining & ~0x7F) != 0) {
+        this.bytes[this.size++] = (byte) (remaining & 0x7F | 0x80);
+        remaining >>>= 7;
+      }
+      this.bytes[this.size++] = (byte) remaining;
+    }
+  }
+}
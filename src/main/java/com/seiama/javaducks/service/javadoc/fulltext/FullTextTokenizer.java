@@ -0,0 +1,55 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.fulltext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.jspecify.annotations.NullMarked;
+
+@NullMarked
+public final class FullTextTokenizer {
+  private static final int MIN_LENGTH = 2;
+  private static final int MAX_LENGTH = 32;
+
+  private FullTextTokenizer() {
+  }
+
+  public static List<String> tokenize(final CharSequence text) {
+    final List<String> tokens = new ArrayList<>();
+    final StringBuilder token = new StringBuilder();
+    for (int i = 0, length = text.length(); i <= length; i++) {
+      final char c = i < length ? text.charAt(i) : ' ';
+      if (Character.isLetterOrDigit(c)) {
+        token.append(c);
+      } else if (!token.isEmpty()) {
+        if (token.length() >= MIN_LENGTH && token.length() <= MAX_LENGTH) {
+          tokens.add(token.toString().toLowerCase(Locale.ROOT));
+        }
+        token.setLength(0);
+      }
+    }
+    return tokens;
+  }
+}
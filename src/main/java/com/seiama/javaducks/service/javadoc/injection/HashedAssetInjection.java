@@ -0,0 +1,78 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.injection;
+
+import com.seiama.javaducks.configuration.properties.ServingConfiguration;
+import com.seiama.javaducks.service.JavadocService;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import com.seiama.javaducks.service.javadoc.storage.JavadocManifest;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.jspecify.annotations.NullMarked;
+import org.springframework.stereotype.Component;
+
+@Component
+@NullMarked
+public class HashedAssetInjection implements Injection {
+  public static final String ASSETS = "/_assets/";
+  private static final Pattern ASSET_PATTERN = Pattern.compile("(href|src)=\"([^\"#?:]+\\.(?:css|js|png|gif|svg))\"");
+  private final ServingConfiguration configuration;
+  private final JavadocService service;
+
+  public HashedAssetInjection(final ServingConfiguration configuration, final JavadocService service) {
+    this.configuration = configuration;
+    this.service = service;
+  }
+
+  @Override
+  public boolean canInject(final Path file, final JavadocKey key) {
+    return this.configuration.hashedAssets() && file.toString().endsWith(HTML) && this.service.manifestFor(key) != null;
+  }
+
+  @Override
+  public String inject(final String line, final Path file, final JavadocKey key) {
+    if (!line.contains("src=\"") && !line.contains("stylesheet")) {
+      return line;
+    }
+    final JavadocManifest manifest = this.service.manifestFor(key);
+    if (manifest == null) {
+      return line;
+    }
+    final Matcher matcher = ASSET_PATTERN.matcher(line);
+    final StringBuilder result = new StringBuilder(line.length());
+    while (matcher.find()) {
+      final String reference = matcher.group(2);
+      final JavadocManifest.Asset asset = reference.startsWith("/") ? null : manifest.asset(file.resolveSibling(reference).normalize().toString());
+      if (asset != null && asset.relocatable()) {
+        final String name = asset.blob().getFileName().toString();
+        matcher.appendReplacement(result, Matcher.quoteReplacement("%s=\"%s%s\"".formatted(matcher.group(1), ASSETS, name)));
+      } else {
+        matcher.appendReplacement(result, Matcher.quoteReplacement(matcher.group()));
+      }
+    }
+    matcher.appendTail(result);
+    return result.toString();
+  }
+}
@@ -23,7 +23,7 @@
  */
 package com.seiama.javaducks.service.javadoc.injection;
 
-import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.service.EndpointService;
 import com.seiama.javaducks.service.javadoc.JavadocKey;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
@@ -37,11 +37,11 @@ import org.springframework.util.StringUtils;
 @Component
 @NullMarked
 public class OutdatedBannerInjection implements Injection {
-  private final AppConfiguration configuration;
+  private final EndpointService endpoints;
   private final String template;
 
-  public OutdatedBannerInjection(final AppConfiguration configuration) {
-    this.configuration = configuration;
+  public OutdatedBannerInjection(final EndpointService endpoints) {
+    this.endpoints = endpoints;
     try (final BufferedReader reader = new BufferedReader(new InputStreamReader(new ClassPathResource("outdated-banner.html").getInputStream()))) {
       this.template = reader.lines().collect(Collectors.joining("\n"));
     } catch (final Exception e) {
@@ -70,7 +70,7 @@ public class OutdatedBannerInjection implements Injection {
   }
 
   private String latestVersion(final JavadocKey key) {
-    return this.configuration.endpoints().stream()
+    return this.endpoints.endpoints().stream()
       .filter(e -> e.name().equals(key.project()))
       .findFirst()
       .map(e -> e.versions().get(e.versions().size() - 1).name())
@@ -24,6 +24,7 @@
 package com.seiama.javaducks.service.javadoc.injection;
 
 import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.service.EndpointService;
 import com.seiama.javaducks.service.javadoc.JavadocKey;
 import java.nio.file.Path;
 import org.jspecify.annotations.NullMarked;
@@ -34,9 +35,11 @@ import org.springframework.stereotype.Component;
 @NullMarked
 public class OutdatedRobotHeaderInjection implements Injection {
   private final AppConfiguration configuration;
+  private final EndpointService endpoints;
 
-  public OutdatedRobotHeaderInjection(final AppConfiguration configuration) {
+  public OutdatedRobotHeaderInjection(final AppConfiguration configuration, final EndpointService endpoints) {
     this.configuration = configuration;
+    this.endpoints = endpoints;
   }
 
   @Override
@@ -56,7 +59,7 @@ public class OutdatedRobotHeaderInjection implements Injection {
   }
 
   private LatestPair isLatestVersion(final JavadocKey key) {
-    return this.configuration.endpoints().stream()
+    return this.endpoints.endpoints().stream()
       .filter(e -> e.name().equals(key.project()))
       .findFirst()
       .map(e -> {
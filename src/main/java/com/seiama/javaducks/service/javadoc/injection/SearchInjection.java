@@ -0,0 +1,72 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.injection;
+
+import com.seiama.javaducks.configuration.properties.SearchConfiguration;
+import com.seiama.javaducks.service.JavadocService;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.jspecify.annotations.NullMarked;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+@Component
+@NullMarked
+@Order(Ordered.HIGHEST_PRECEDENCE) // must see the script.js reference before other injections rewrite it
+public class SearchInjection implements Injection {
+  private static final Pattern SCRIPT_PATTERN = Pattern.compile("src=\"(?:\\.\\./)*script\\.js\"");
+  private final SearchConfiguration configuration;
+  private final JavadocService service;
+  private final String template;
+
+  public SearchInjection(final SearchConfiguration configuration, final JavadocService service) {
+    this.configuration = configuration;
+    this.service = service;
+    try (final BufferedReader reader = new BufferedReader(new InputStreamReader(new ClassPathResource("search-client.html").getInputStream()))) {
+      this.template = reader.lines().collect(Collectors.joining("\n"));
+    } catch (final Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public boolean canInject(final Path file, final JavadocKey key) {
+    return this.configuration.injectClient() && file.toString().endsWith(HTML) && this.service.hasSearchIndex(key);
+  }
+
+  @Override
+  public String inject(final String line, final Path file, final JavadocKey key) {
+    if (SCRIPT_PATTERN.matcher(line).find()) {
+      // must come after script.js so our loadScripts replaces the one that downloads the indexes
+      return line + "\n" + this.template.formatted(key.project(), key.version());
+    }
+    return line;
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// entries are reachable through a sorted array of lower-cased keys (label and qualified name),
+// so a prefix query is a binary search followed by a bounded scan
+@NullMarked
+public final class SearchIndex {
+  public static final SearchIndex EMPTY = new SearchIndex(List.of());
+  private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+  // upper bound of candidates looked at for very short prefixes
+  private static final int MAX_CANDIDATES = 10_000;
+  private static final String UNNAMED_PACKAGE = "<Unnamed>";
+  private final Entry[] entries;
+  private final String[] keys;
+  private final int[] ids;
+
+  private SearchIndex(final List<Entry> entries) {
+    this.entries = entries.toArray(Entry[]::new);
+    final List<Key> keys = new ArrayList<>(entries.size() * 2);
+    for (int id = 0; id < this.entries.length; id++) {
+      final Entry entry = this.entries[id];
+      final String label = entry.label().toLowerCase(Locale.ROOT);
+      keys.add(new Key(label, id));
+      final String qualified = switch (entry.kind()) {
+        case PACKAGE -> null;
+        case TYPE -> entry.packageName() != null ? entry.packageName() + "." + entry.label() : null;
+        case MEMBER -> entry.typeName() + "." + entry.label();
+      };
+      if (qualified != null) {
+        keys.add(new Key(qualified.toLowerCase(Locale.ROOT), id));
+      }
+    }
+    keys.sort(Comparator.comparing(Key::key));
+    this.keys = new String[keys.size()];
+    this.ids = new int[keys.size()];
+    for (int i = 0; i < keys.size(); i++) {
+      this.keys[i] = keys.get(i).key();
+      this.ids[i] = keys.get(i).id();
+    }
+  }
+
+  public static SearchIndex load(final Path root) throws IOException {
+    final List<Entry> entries = new ArrayList<>();
+    final Map<String, String> names = new HashMap<>();
+    for (final SearchResult.Kind kind : SearchResult.Kind.values()) {
+      final JsonNode index = readIndex(root, kind.indexName());
+      if (index == null) {
+        continue;
+      }
+      for (final JsonNode node : index) {
+        final Entry entry = Entry.of(kind, node, names);
+        if (entry != null) {
+          entries.add(entry);
+        }
+      }
+    }
+    return entries.isEmpty() ? EMPTY : new SearchIndex(entries);
+  }
+
+  private static @Nullable JsonNode readIndex(final Path root, final String name) throws IOException {
+    final Path script = root.resolve(name + ".js");
+    if (Files.isRegularFile(script)) {
+      // typeSearchIndex = [{...},{...}];updateSearchResults();
+      final String contents = Files.readString(script, StandardCharsets.UTF_8);
+      final int start = contents.indexOf('[');
+      final int end = contents.lastIndexOf(']');
+      if (start == -1 || end < start) {
+        return null;
+      }
+      return JSON_MAPPER.readTree(contents.substring(start, end + 1));
+    }
+    final Path zip = root.resolve(name + ".zip");
+    if (Files.isRegularFile(zip)) {
+      // older javadoc versions ship the index as a json file inside a zip
+      try (final ZipInputStream input = new ZipInputStream(Files.newInputStream(zip))) {
+        final ZipEntry entry = input.getNextEntry();
+        if (entry != null) {
+          return JSON_MAPPER.readTree(input);
+        }
+      }
+    }
+    return null;
+  }
+
+  public int size() {
+    return this.entries.length;
+  }
+
+  // qualified names of every package, type and member, e.g. org.bukkit.entity.Player#getName()
+  public Set<String> symbols() {
+    final Set<String> symbols = new HashSet<>(this.entries.length);
+    for (final Entry entry : this.entries) {
+      symbols.add(entry.symbol());
+    }
+    return symbols;
+  }
+
+  public List<SearchResult> search(final String query, final int limit) {
+    final String prefix = query.trim().toLowerCase(Locale.ROOT);
+    if (prefix.isEmpty() || limit <= 0 || this.entries.length == 0) {
+      return List.of();
+    }
+    final Comparator<Candidate> ranking = Comparator.comparingInt(Candidate::rank).thenComparingInt(Candidate::id).reversed();
+    final PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1, ranking);
+    final BitSet seen = new BitSet(this.entries.length);
+    int index = Arrays.binarySearch(this.keys, prefix);
+    if (index < 0) {
+      index = -(index + 1);
+    }
+    for (int scanned = 0; index < this.keys.length && scanned < MAX_CANDIDATES; index++, scanned++) {
+      final String key = this.keys[index];
+      if (!key.startsWith(prefix)) {
+        break;
+      }
+      final int id = this.ids[index];
+      if (seen.get(id)) {
+        continue;
+      }
+      seen.set(id);
+      best.add(new Candidate(id, rank(this.entries[id], key, prefix)));
+      if (best.size() > limit) {
+        best.poll();
+      }
+    }
+    final Candidate[] sorted = best.toArray(Candidate[]::new);
+    Arrays.sort(sorted, ranking.reversed());
+    final List<SearchResult> results = new ArrayList<>(sorted.length);
+    for (final Candidate candidate : sorted) {
+      results.add(this.entries[candidate.id()].toResult());
+    }
+    return results;
+  }
+
+  // lower is better: exact matches first, then types before packages before members, then shorter keys
+  private static int rank(final Entry entry, final String key, final String prefix) {
+    final boolean exact = key.length() == prefix.length() || entry.kind() == SearchResult.Kind.MEMBER && key.charAt(prefix.length()) == '(';
+    return (exact ? 0 : 1 << 24) | entry.kind().ordinal() << 16 | Math.min(key.length(), 0xFFFF);
+  }
+
+  @NullMarked
+  private record Key(String key, int id) {
+  }
+
+  @NullMarked
+  private record Candidate(int id, int rank) {
+  }
+
+  @NullMarked
+  private record Entry(
+    SearchResult.Kind kind,
+    @Nullable String module,
+    @Nullable String packageName,
+    @Nullable String typeName,
+    String label,
+    @Nullable String target
+  ) {
+    static @Nullable Entry of(final SearchResult.Kind kind, final JsonNode node, final Map<String, String> names) {
+      final String label = text(node, "l", names);
+      if (label == null) {
+        return null;
+      }
+      final String packageName = text(node, "p", names);
+      final String typeName = text(node, "c", names);
+      switch (kind) {
+        // skip the "All Packages" and "All Classes" links
+        case PACKAGE, TYPE -> {
+          if (label.indexOf(' ') != -1) {
+            return null;
+          }
+        }
+        case MEMBER -> {
+          if (packageName == null || typeName == null) {
+            return null;
+          }
+        }
+      }
+      return new Entry(kind, text(node, "m", names), packageName, typeName, label, text(node, "u", null));
+    }
+
+    private static @Nullable String text(final JsonNode node, final String field, final @Nullable Map<String, String> names) {
+      final JsonNode value = node.get(field);
+      if (value == null || !value.isTextual()) {
+        return null;
+      }
+      // packages and types repeat a lot, share their instances
+      return names != null ? names.computeIfAbsent(value.asText(), name -> name) : value.asText();
+    }
+
+    String symbol() {
+      return switch (this.kind) {
+        case PACKAGE -> this.label;
+        case TYPE -> this.qualifiedType(this.label);
+        case MEMBER -> this.qualifiedType(this.typeName) + "#" + this.label;
+      };
+    }
+
+    private String qualifiedType(final @Nullable String type) {
+      if (this.packageName == null || this.packageName.equals(UNNAMED_PACKAGE)) {
+        return String.valueOf(type);
+      }
+      return this.packageName + "." + type;
+    }
+
+    SearchResult toResult() {
+      return new SearchResult(this.kind, this.packageName, this.typeName, this.label, this.resolveUrl());
+    }
+
+    private String resolveUrl() {
+      final String prefix = this.module != null ? this.module + "/" : "";
+      return switch (this.kind) {
+        case PACKAGE -> this.target != null ? this.target : prefix + this.label.replace('.', '/') + "/package-summary.html";
+        case TYPE -> this.target != null ? this.target : prefix + this.packagePath() + this.label + ".html";
+        case MEMBER -> prefix + this.packagePath() + this.typeName + ".html#" + (this.target != null ? this.target : this.label);
+      };
+    }
+
+    private String packagePath() {
+      if (this.packageName == null || this.packageName.equals(UNNAMED_PACKAGE)) {
+        return "";
+      }
+      return this.packageName.replace('.', '/') + "/";
+    }
+  }
+}
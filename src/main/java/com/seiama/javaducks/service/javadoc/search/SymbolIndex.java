@@ -0,0 +1,168 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.search;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// maps every symbol of a project to the set of versions that contain it. version sets are
+// immutable and interned, so the thousands of symbols present in the same versions share one.
+// this is all that is kept of a version's search index once that has been evicted
+@NullMarked
+public final class SymbolIndex {
+  private final Map<String, ProjectSymbols> projects = new ConcurrentHashMap<>();
+
+  public void update(final String project, final String version, final Collection<String> symbols) {
+    this.projects.computeIfAbsent(project, key -> new ProjectSymbols()).update(version, symbols);
+  }
+
+  public void remove(final String project, final String version) {
+    final ProjectSymbols symbols = this.projects.get(project);
+    if (symbols != null) {
+      symbols.remove(version);
+    }
+  }
+
+  // versions are returned in the given order, which should be the configured one
+  public @Nullable List<String> versions(final String project, final String symbol, final List<String> order) {
+    final ProjectSymbols symbols = this.projects.get(project);
+    return symbols != null ? symbols.versions(symbol, order) : null;
+  }
+
+  public int size(final String project) {
+    final ProjectSymbols symbols = this.projects.get(project);
+    return symbols != null ? symbols.size() : 0;
+  }
+
+  @NullMarked
+  private static final class ProjectSymbols {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> versionBits = new HashMap<>();
+    private final Map<String, BitSet> symbols = new HashMap<>();
+    private final Map<BitSet, BitSet> sets = new HashMap<>();
+
+    void update(final String version, final Collection<String> added) {
+      this.lock.writeLock().lock();
+      try {
+        final int bit = this.versionBits.computeIfAbsent(version, key -> this.freeBit());
+        final Set<String> present = added instanceof Set<String> set ? set : new HashSet<>(added);
+        final Iterator<Map.Entry<String, BitSet>> iterator = this.symbols.entrySet().iterator();
+        while (iterator.hasNext()) {
+          final Map.Entry<String, BitSet> entry = iterator.next();
+          if (entry.getValue().get(bit) && !present.contains(entry.getKey())) {
+            final BitSet versions = this.with(entry.getValue(), bit, false);
+            if (versions.isEmpty()) {
+              iterator.remove();
+            } else {
+              entry.setValue(versions);
+            }
+          }
+        }
+        for (final String symbol : present) {
+          final BitSet versions = this.symbols.get(symbol);
+          if (versions == null) {
+            this.symbols.put(symbol, this.with(new BitSet(), bit, true));
+          } else if (!versions.get(bit)) {
+            this.symbols.put(symbol, this.with(versions, bit, true));
+          }
+        }
+        // drop version sets no symbol points at anymore
+        this.sets.clear();
+        for (final BitSet versions : this.symbols.values()) {
+          this.sets.putIfAbsent(versions, versions);
+        }
+      } finally {
+        this.lock.writeLock().unlock();
+      }
+    }
+
+    void remove(final String version) {
+      this.lock.writeLock().lock();
+      try {
+        if (this.versionBits.containsKey(version)) {
+          this.update(version, List.of());
+          // no symbol has the bit set anymore, the next version added can take it
+          this.versionBits.remove(version);
+        }
+      } finally {
+        this.lock.writeLock().unlock();
+      }
+    }
+
+    private int freeBit() {
+      final BitSet used = new BitSet();
+      for (final int bit : this.versionBits.values()) {
+        used.set(bit);
+      }
+      return used.nextClearBit(0);
+    }
+
+    private BitSet with(final BitSet versions, final int bit, final boolean value) {
+      final BitSet copy = (BitSet) versions.clone();
+      copy.set(bit, value);
+      return this.sets.computeIfAbsent(copy, key -> key);
+    }
+
+    @Nullable List<String> versions(final String symbol, final List<String> order) {
+      this.lock.readLock().lock();
+      try {
+        final BitSet versions = this.symbols.get(symbol);
+        if (versions == null) {
+          return null;
+        }
+        final List<String> result = new ArrayList<>();
+        for (final String version : order) {
+          final Integer bit = this.versionBits.get(version);
+          if (bit != null && versions.get(bit)) {
+            result.add(version);
+          }
+        }
+        return result;
+      } finally {
+        this.lock.readLock().unlock();
+      }
+    }
+
+    int size() {
+      this.lock.readLock().lock();
+      try {
+        return this.symbols.size();
+      } finally {
+        this.lock.readLock().unlock();
+      }
+    }
+  }
+}
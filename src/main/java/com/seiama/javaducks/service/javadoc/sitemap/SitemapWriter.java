@@ -0,0 +1,110 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.sitemap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// https://www.sitemaps.org/protocol.html
+@NullMarked
+public final class SitemapWriter {
+  public static final int MAX_URLS = 50_000;
+  private static final String NAMESPACE = "http://www.sitemaps.org/schemas/sitemap/0.9";
+
+  private SitemapWriter() {
+  }
+
+  // gzipped urlsets of at most maxUrls locations each
+  public static List<byte[]> urlsets(final List<String> locations, final int maxUrls) {
+    final List<byte[]> chunks = new ArrayList<>();
+    for (int start = 0; start < locations.size(); start += maxUrls) {
+      chunks.add(gzip(locations.subList(start, Math.min(locations.size(), start + maxUrls))));
+    }
+    return chunks;
+  }
+
+  public static byte[] index(final List<Sitemap> sitemaps) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (final Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+      writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<sitemapindex xmlns=\"" + NAMESPACE + "\">\n");
+      for (final Sitemap sitemap : sitemaps) {
+        writer.write("<sitemap><loc>");
+        escape(writer, sitemap.location());
+        writer.write("</loc>");
+        if (sitemap.lastModified() != null) {
+          writer.write("<lastmod>" + sitemap.lastModified() + "</lastmod>");
+        }
+        writer.write("</sitemap>\n");
+      }
+      writer.write("</sitemapindex>\n");
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] gzip(final List<String> locations) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (final Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+      writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<urlset xmlns=\"" + NAMESPACE + "\">\n");
+      for (final String location : locations) {
+        writer.write("<url><loc>");
+        escape(writer, location);
+        writer.write("</loc></url>\n");
+      }
+      writer.write("</urlset>\n");
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void escape(final Writer writer, final String value) throws IOException {
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      switch (c) {
+        case '&' -> writer.write("&amp;");
+        case '<' -> writer.write("&lt;");
+        case '>' -> writer.write("&gt;");
+        case '"' -> writer.write("&quot;");
+        case '\'' -> writer.write("&apos;");
+        default -> writer.write(c);
+      }
+    }
+  }
+
+  @NullMarked
+  public record Sitemap(String location, @Nullable Instant lastModified) {
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.storage;
+
+import com.seiama.javaducks.util.crypto.HashAlgorithm;
+import com.seiama.javaducks.util.maven.MavenHashType;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// content addressed storage shared by all versions. jars are stored by their verified hash and
+// hard linked to <project>/<version>.jar, every other jar entry is stored once by its sha256
+@NullMarked
+public final class BlobStore {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BlobStore.class);
+  private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]+");
+  // blobs younger than this are never collected, they may be about to be linked
+  private static final Duration COLLECT_GRACE = Duration.ofHours(1);
+  private final Path jars;
+  private final Path assets;
+  private final Map<String, Path> assetPaths = new ConcurrentHashMap<>();
+
+  public BlobStore(final Path root) {
+    this.jars = root.resolve("jars");
+    this.assets = root.resolve("assets");
+  }
+
+  public @Nullable Path jar(final MavenHashType type, final String hash) {
+    final String normalized = hash.trim().toLowerCase(Locale.ROOT);
+    if (!HASH_PATTERN.matcher(normalized).matches()) {
+      return null;
+    }
+    return this.jars.resolve(type.extension() + "-" + normalized + ".jar");
+  }
+
+  // <type>-<hash> of a jar blob
+  public static String jarHash(final Path jar) {
+    final String name = jar.getFileName().toString();
+    return name.substring(0, name.length() - ".jar".length());
+  }
+
+  // the same instance is handed out for the same content, whichever version asks
+  public Path asset(final String hash, final String extension) {
+    return this.assetPaths.computeIfAbsent(hash + extension, name -> this.assets.resolve(hash.substring(0, 2)).resolve(name));
+  }
+
+  // looks up an asset without remembering it, the hash comes from a request
+  public @Nullable Path existingAsset(final String hash, final String extension) {
+    final Path cached = this.assetPaths.get(hash + extension);
+    if (cached != null) {
+      return cached;
+    }
+    if (hash.length() < 2 || !HASH_PATTERN.matcher(hash).matches()) {
+      return null;
+    }
+    final Path path = this.assets.resolve(hash.substring(0, 2)).resolve(hash + extension);
+    return Files.isRegularFile(path) ? path : null;
+  }
+
+  public void write(final Path blob, final byte[] bytes) throws IOException {
+    if (Files.isRegularFile(blob)) {
+      return;
+    }
+    Files.createDirectories(blob.getParent());
+    final Path temporary = Files.createTempFile(blob.getParent(), blob.getFileName().toString(), ".tmp");
+    try {
+      Files.write(temporary, bytes);
+      Files.move(temporary, blob, StandardCopyOption.ATOMIC_MOVE);
+    } catch (final FileAlreadyExistsException e) {
+      // written concurrently, the content is the same
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  // a file to download a jar into before its hash is known
+  public Path temporaryJar() throws IOException {
+    Files.createDirectories(this.jars);
+    return Files.createTempFile(this.jars, "download", ".tmp");
+  }
+
+  // where a download keeps what it has so far between attempts, collected like any other unlinked blob
+  public Path partialJar(final URI uri) throws IOException {
+    Files.createDirectories(this.jars);
+    return this.jars.resolve(HashAlgorithm.SHA256.hash(uri.toString().getBytes(StandardCharsets.UTF_8)) + ".partial");
+  }
+
+  // the etag or last modified date a partial download was started with
+  public static Path validatorFor(final Path partial) {
+    return partial.resolveSibling(partial.getFileName() + ".validator");
+  }
+
+  public void store(final Path temporary, final Path blob) throws IOException {
+    try {
+      Files.createDirectories(blob.getParent());
+      Files.move(temporary, blob, StandardCopyOption.ATOMIC_MOVE);
+    } catch (final FileAlreadyExistsException e) {
+      // stored concurrently, the content is the same
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  // atomically replaces target with a hard link to blob, or a copy where links are not supported
+  public void link(final Path blob, final Path target) throws IOException {
+    final Path temporary = target.resolveSibling(target.getFileName() + ".link");
+    Files.deleteIfExists(temporary);
+    try {
+      Files.createLink(temporary, blob);
+    } catch (final UnsupportedOperationException | FileSystemException e) {
+      Files.copy(blob, temporary, StandardCopyOption.REPLACE_EXISTING);
+    }
+    Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  // the blob a version is linked to, its name carries the verified hash of the content
+  public @Nullable Path linkedJar(final Path installed) throws IOException {
+    if (!Files.isRegularFile(installed) || !Files.isDirectory(this.jars)) {
+      return null;
+    }
+    try (final Stream<Path> files = Files.list(this.jars)) {
+      final Iterator<Path> iterator = files.iterator();
+      while (iterator.hasNext()) {
+        final Path file = iterator.next();
+        if (file.getFileName().toString().endsWith(".jar") && Files.isSameFile(file, installed)) {
+          return file;
+        }
+      }
+    }
+    return null;
+  }
+
+  // removes jar blobs no version links to anymore and assets no manifest references
+  public void collect(final Set<Path> versionJars, final Set<Path> referencedAssets) {
+    final Set<Object> linkedJars = new HashSet<>();
+    for (final Path jar : versionJars) {
+      try {
+        final Object key = Files.readAttributes(jar, BasicFileAttributes.class).fileKey();
+        if (key == null) {
+          // no way to tell which blobs are linked
+          return;
+        }
+        linkedJars.add(key);
+      } catch (final IOException e) {
+        // not installed
+      }
+    }
+    final FileTime threshold = FileTime.from(Instant.now().minus(COLLECT_GRACE));
+    int removed = 0;
+    removed += this.collect(this.jars, threshold, attributes -> !linkedJars.contains(attributes.fileKey()), null);
+    removed += this.collect(this.assets, threshold, attributes -> true, referencedAssets);
+    if (removed > 0) {
+      LOGGER.info("Removed {} unreferenced blobs", removed);
+    }
+  }
+
+  private int collect(final Path directory, final FileTime threshold, final Predicate<BasicFileAttributes> unused, final @Nullable Set<Path> referenced) {
+    if (!Files.isDirectory(directory)) {
+      return 0;
+    }
+    int removed = 0;
+    try (final Stream<Path> files = Files.walk(directory)) {
+      final Iterator<Path> iterator = files.iterator();
+      while (iterator.hasNext()) {
+        final Path file = iterator.next();
+        final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (!attributes.isRegularFile() || attributes.lastModifiedTime().compareTo(threshold) > 0) {
+          continue;
+        }
+        if ((referenced == null || !referenced.contains(file)) && unused.test(attributes)) {
+          Files.deleteIfExists(file);
+          this.assetPaths.values().remove(file);
+          removed++;
+        }
+      }
+    } catch (final IOException e) {
+      LOGGER.warn("Could not collect blobs in {}. Exception: {}: {}", directory, e.getClass().getName(), e.getMessage());
+    }
+    return removed;
+  }
+}
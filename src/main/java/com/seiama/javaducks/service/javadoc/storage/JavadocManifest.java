@@ -0,0 +1,212 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.storage;
+
+import com.seiama.javaducks.service.javadoc.injection.Injection;
+import com.seiama.javaducks.util.crypto.HashAlgorithm;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// maps the non-html entries of one javadoc jar to their blobs. html pages stay in the jar,
+// they differ between versions and are injected anyway
+@NullMarked
+public final class JavadocManifest {
+  public static final String EXTENSION = ".manifest";
+  private static final char SEPARATOR = '\t';
+  // bumped whenever the line layout changes, older manifests are rebuilt from their jar
+  private static final String FORMAT = "@format" + SEPARATOR + "2";
+  private static final String RELOCATABLE = "r";
+  private static final String PRELOAD = "@preload";
+  private static final String INDEX = "index.html";
+  private static final Pattern HEAD_ASSET_PATTERN = Pattern.compile("<(?:link|script)[^>]*?(?:href|src)=\"([^\"#?:]+)\"");
+  private final Map<String, Asset> assets;
+  private final List<String> preloads;
+
+  private JavadocManifest(final Map<String, Asset> assets, final List<String> preloads) {
+    this.assets = assets;
+    this.preloads = preloads;
+  }
+
+  public static Path pathFor(final Path jar) {
+    final String name = jar.getFileName().toString();
+    return jar.resolveSibling(name.substring(0, name.length() - ".jar".length()) + EXTENSION);
+  }
+
+  public static JavadocManifest build(final Path jar, final BlobStore blobs) throws IOException {
+    final Map<String, Asset> assets = new HashMap<>();
+    try (
+      final FileSystem fs = FileSystems.newFileSystem(jar);
+      final Stream<Path> entries = Files.walk(fs.getPath("/"))
+    ) {
+      final Iterator<Path> iterator = entries.iterator();
+      while (iterator.hasNext()) {
+        final Path entry = iterator.next();
+        final String path = entry.toString().substring(1);
+        if (path.endsWith(Injection.HTML) || path.startsWith("META-INF/") || !Files.isRegularFile(entry)) {
+          continue;
+        }
+        final byte[] bytes = Files.readAllBytes(entry);
+        final String hash = HashAlgorithm.SHA256.hash(bytes).toString();
+        final Path blob = blobs.asset(hash, extension(path));
+        blobs.write(blob, bytes);
+        assets.put(path, new Asset(hash, blob, relocatable(path, bytes)));
+      }
+      return new JavadocManifest(assets, preloads(fs.getPath("/" + INDEX), assets));
+    }
+  }
+
+  // every page links the same stylesheets and scripts from its head, the index is representative
+  private static List<String> preloads(final Path index, final Map<String, Asset> assets) throws IOException {
+    if (!Files.isRegularFile(index)) {
+      return List.of();
+    }
+    final String html = Files.readString(index, StandardCharsets.UTF_8);
+    final int end = html.indexOf("</head>");
+    final Matcher matcher = HEAD_ASSET_PATTERN.matcher(end >= 0 ? html.substring(0, end) : html);
+    final Set<String> preloads = new LinkedHashSet<>();
+    while (matcher.find()) {
+      final String path = index.resolveSibling(matcher.group(1)).normalize().toString().substring(1);
+      if (assets.containsKey(path)) {
+        preloads.add(path);
+      }
+    }
+    return List.copyOf(preloads);
+  }
+
+  public static @Nullable JavadocManifest read(final Path file, final BlobStore blobs) throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    if (lines.isEmpty() || !lines.get(0).equals(FORMAT)) {
+      // a layout we can't read would look like a version without assets
+      return null;
+    }
+    final Map<String, Asset> assets = new HashMap<>(lines.size() * 4 / 3 + 1);
+    final List<String> preloads = new ArrayList<>();
+    for (final String line : lines.subList(1, lines.size())) {
+      if (line.startsWith(PRELOAD + SEPARATOR)) {
+        preloads.add(line.substring(PRELOAD.length() + 1));
+        continue;
+      }
+      final int first = line.indexOf(SEPARATOR);
+      final int second = line.indexOf(SEPARATOR, first + 1);
+      if (first <= 0 || second <= first) {
+        continue;
+      }
+      final String hash = line.substring(0, first);
+      final boolean relocatable = line.startsWith(RELOCATABLE, first + 1);
+      final String path = line.substring(second + 1);
+      assets.put(path, new Asset(hash, blobs.asset(hash, extension(path)), relocatable));
+    }
+    return new JavadocManifest(assets, List.copyOf(preloads));
+  }
+
+  // whether the manifest exists and is in the current format, without reading all of it
+  public static boolean current(final Path file) {
+    try (final BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      return FORMAT.equals(reader.readLine());
+    } catch (final IOException e) {
+      return false;
+    }
+  }
+
+  public void write(final Path file) throws IOException {
+    final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    try (final BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+      writer.write(FORMAT);
+      writer.newLine();
+      for (final Map.Entry<String, Asset> entry : this.assets.entrySet()) {
+        writer.write(entry.getValue().hash());
+        writer.write(SEPARATOR);
+        writer.write(entry.getValue().relocatable() ? RELOCATABLE : "-");
+        writer.write(SEPARATOR);
+        writer.write(entry.getKey());
+        writer.newLine();
+      }
+      for (final String preload : this.preloads) {
+        writer.write(PRELOAD);
+        writer.write(SEPARATOR);
+        writer.write(preload);
+        writer.newLine();
+      }
+    }
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  public @Nullable Asset asset(final String path) {
+    return this.assets.get(path.startsWith("/") ? path.substring(1) : path);
+  }
+
+  // jar paths of the assets a page needs before it can render
+  public List<String> preloads() {
+    return this.preloads;
+  }
+
+  public Collection<Asset> assets() {
+    return this.assets.values();
+  }
+
+  // whether the asset still works when served from somewhere else than its place in the jar
+  private static boolean relocatable(final String path, final byte[] bytes) {
+    return switch (extension(path)) {
+      case ".js", ".png", ".gif", ".svg" -> true;
+      case ".css" -> {
+        // relative urls would resolve against the new location
+        final String css = new String(bytes, StandardCharsets.UTF_8);
+        yield !css.contains("url(") && !css.contains("@import");
+      }
+      default -> false;
+    };
+  }
+
+  private static String extension(final String path) {
+    final int slash = path.lastIndexOf('/');
+    final int dot = path.lastIndexOf('.');
+    return dot > slash ? path.substring(dot) : "";
+  }
+
+  public record Asset(String hash, Path blob, boolean relocatable) {
+  }
+}
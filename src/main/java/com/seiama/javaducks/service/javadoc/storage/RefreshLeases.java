@@ -0,0 +1,102 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// coordinates nodes sharing a storage directory: a version is refreshed by whoever holds the lock on
+// its lease file, and not again by anyone until the lease taken in the current cycle runs out
+@NullMarked
+public final class RefreshLeases {
+  public static final String EXTENSION = ".lease";
+  private final Duration validity;
+
+  public RefreshLeases(final Duration validity) {
+    this.validity = validity;
+  }
+
+  // null when another node is refreshing the version or already did in this cycle
+  public @Nullable Lease acquire(final Path jar) throws IOException {
+    return this.lock(jar, true);
+  }
+
+  // null only when another node is refreshing the version, for refreshes that can't wait for the next cycle
+  public @Nullable Lease acquireNow(final Path jar) throws IOException {
+    return this.lock(jar, false);
+  }
+
+  private @Nullable Lease lock(final Path jar, final boolean once) throws IOException {
+    final String name = jar.getFileName().toString();
+    final Path file = jar.resolveSibling(name.substring(0, name.length() - ".jar".length()) + EXTENSION);
+    final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      final FileLock lock = channel.tryLock();
+      if (lock == null) {
+        channel.close();
+        return null;
+      }
+      final long now = System.currentTimeMillis();
+      final ByteBuffer taken = ByteBuffer.allocate(Long.BYTES);
+      if (once && channel.read(taken, 0) == Long.BYTES && now - taken.flip().getLong() < this.validity.toMillis()) {
+        channel.close();
+        return null;
+      }
+      // stamped when taken, a refresh that fails here would fail on the other nodes too
+      channel.write(taken.clear().putLong(now).flip(), 0);
+      channel.force(false);
+      return new Lease(channel);
+    } catch (final OverlappingFileLockException e) {
+      // held by this node
+      channel.close();
+      return null;
+    } catch (final IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  @NullMarked
+  public static final class Lease implements AutoCloseable {
+    private final FileChannel channel;
+
+    private Lease(final FileChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public void close() throws IOException {
+      // releases the lock
+      this.channel.close();
+    }
+  }
+}
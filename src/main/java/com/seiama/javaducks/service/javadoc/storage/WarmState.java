@@ -0,0 +1,105 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.storage;
+
+import com.seiama.javaducks.service.javadoc.HotPaths;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import com.seiama.javaducks.service.javadoc.RefreshSchedule;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// what a restarted node needs to pick up where the previous one left: the most requested pages,
+// hottest first, and when each version is checked next
+@NullMarked
+public record WarmState(
+  List<HotPaths.Hit> pages,
+  Map<JavadocKey, RefreshSchedule.Check> checks
+) {
+  public static final WarmState EMPTY = new WarmState(List.of(), Map.of());
+  private static final String SEPARATOR = "\t";
+  private static final String PAGE = "page";
+  private static final String CHECK = "check";
+  private static final String NONE = "-";
+
+  public static WarmState read(final Path file) throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return EMPTY;
+    }
+    final List<HotPaths.Hit> pages = new ArrayList<>();
+    final Map<JavadocKey, RefreshSchedule.Check> checks = new LinkedHashMap<>();
+    for (final String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+      // the path is last so it may contain anything but a line break
+      final String[] fields = line.split(SEPARATOR, line.startsWith(PAGE + SEPARATOR) ? 5 : -1);
+      try {
+        if (fields.length == 5 && fields[0].equals(PAGE)) {
+          pages.add(new HotPaths.Hit(new JavadocKey(fields[1], fields[2]), fields[4], Long.parseLong(fields[3])));
+        } else if (fields.length == 6 && fields[0].equals(CHECK)) {
+          final Instant lastChange = fields[5].equals(NONE) ? null : Instant.ofEpochMilli(Long.parseLong(fields[5]));
+          checks.put(new JavadocKey(fields[1], fields[2]), new RefreshSchedule.Check(Instant.ofEpochMilli(Long.parseLong(fields[3])), Duration.ofMillis(Long.parseLong(fields[4])), lastChange));
+        }
+      } catch (final NumberFormatException e) {
+        // written by a different version, skip the line
+      }
+    }
+    return new WarmState(List.copyOf(pages), Map.copyOf(checks));
+  }
+
+  public void write(final Path file) throws IOException {
+    // unique per writer, nodes sharing the storage may snapshot at the same time
+    final Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+    try {
+      try (final BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+        for (final HotPaths.Hit page : this.pages) {
+          if (page.path().indexOf('\n') >= 0 || page.path().indexOf('\r') >= 0) {
+            continue;
+          }
+          writer.write(String.join(SEPARATOR, PAGE, page.key().project(), page.key().version(), Long.toString(page.count()), page.path()));
+          writer.newLine();
+        }
+        for (final Map.Entry<JavadocKey, RefreshSchedule.Check> entry : this.checks.entrySet()) {
+          final RefreshSchedule.Check check = entry.getValue();
+          final @Nullable Instant lastChange = check.lastChange();
+          writer.write(String.join(SEPARATOR, CHECK, entry.getKey().project(), entry.getKey().version(), Long.toString(check.nextCheck().toEpochMilli()), Long.toString(check.interval().toMillis()), lastChange != null ? Long.toString(lastChange.toEpochMilli()) : NONE));
+          writer.newLine();
+        }
+      }
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      // gone after the move, left over only when writing failed
+      Files.deleteIfExists(temporary);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.upstream;
+
+import com.seiama.javaducks.util.maven.MavenHashType;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// the hash type each repository host has been serving, so a refresh asks for that one first
+// instead of probing every type. one "<host>\t<type>" line per host
+@NullMarked
+public final class HashCapabilities {
+  private static final Logger LOGGER = LoggerFactory.getLogger(HashCapabilities.class);
+  private static final char SEPARATOR = '\t';
+  private final Path file;
+  private final Map<String, MavenHashType> types = new ConcurrentHashMap<>();
+
+  public HashCapabilities(final Path file) {
+    this.file = file;
+    if (Files.isRegularFile(file)) {
+      try {
+        for (final String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+          final int separator = line.indexOf(SEPARATOR);
+          if (separator > 0) {
+            this.types.put(line.substring(0, separator), MavenHashType.valueOf(line.substring(separator + 1)));
+          }
+        }
+      } catch (final IOException | IllegalArgumentException e) {
+        LOGGER.warn("Could not read hash types from {}. Exception: {}: {}", file, e.getClass().getName(), e.getMessage());
+      }
+    }
+  }
+
+  public @Nullable MavenHashType get(final URI uri) {
+    final String host = uri.getAuthority();
+    return host != null ? this.types.get(host) : null;
+  }
+
+  public void remember(final URI uri, final MavenHashType type) {
+    final String host = uri.getAuthority();
+    if (host != null && this.types.put(host, type) != type) {
+      this.save();
+    }
+  }
+
+  public void forget(final URI uri) {
+    final String host = uri.getAuthority();
+    if (host != null && this.types.remove(host) != null) {
+      this.save();
+    }
+  }
+
+  private synchronized void save() {
+    final StringBuilder contents = new StringBuilder();
+    new TreeMap<>(this.types).forEach((host, type) -> contents.append(host).append(SEPARATOR).append(type.name()).append('\n'));
+    try {
+      Files.createDirectories(this.file.getParent());
+      final Path temporary = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+      Files.writeString(temporary, contents, StandardCharsets.UTF_8);
+      Files.move(temporary, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (final IOException e) {
+      LOGGER.warn("Could not store hash types in {}. Exception: {}: {}", this.file, e.getClass().getName(), e.getMessage());
+    }
+  }
+}
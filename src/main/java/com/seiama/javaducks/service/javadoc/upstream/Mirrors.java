@@ -0,0 +1,168 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.upstream;
+
+import com.seiama.javaducks.configuration.properties.UpstreamConfiguration;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// the repositories that serve the same artifacts, ranked by how they have been answering lately
+@NullMarked
+public final class Mirrors {
+  private static final int WINDOW = 64;
+  private static final double SMOOTHING = 0.2;
+  private static final int UNHEALTHY_FAILURES = 3;
+  // an unhealthy repository gets another chance after this
+  private static final long PROBATION = Duration.ofMinutes(1).toNanos();
+  private final List<List<String>> groups = new ArrayList<>();
+  private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+  public Mirrors(final List<UpstreamConfiguration.Mirror> mirrors) {
+    for (final UpstreamConfiguration.Mirror mirror : mirrors) {
+      final List<String> group = new ArrayList<>();
+      group.add(normalize(mirror.repository()));
+      mirror.urls().forEach(url -> group.add(normalize(url)));
+      this.groups.add(group);
+    }
+  }
+
+  // the uri at every repository that serves it, the fastest healthy one first. a repository
+  // nobody has heard from yet ranks first so it gets measured
+  public List<URI> candidates(final URI uri) {
+    final String string = uri.toString();
+    for (final List<String> group : this.groups) {
+      for (final String base : group) {
+        if (string.startsWith(base)) {
+          final String path = string.substring(base.length());
+          final long now = System.nanoTime();
+          return group.stream()
+            .sorted(Comparator.comparing((String candidate) -> !this.statsOf(candidate).healthy(now)).thenComparingDouble(candidate -> this.statsOf(candidate).latency()))
+            .map(candidate -> URI.create(candidate + path))
+            .toList();
+        }
+      }
+    }
+    return List.of(uri);
+  }
+
+  public void latency(final URI uri, final long nanos) {
+    final Stats stats = this.statsFor(uri);
+    if (stats != null) {
+      stats.latency(nanos);
+    }
+  }
+
+  public void success(final URI uri) {
+    final Stats stats = this.statsFor(uri);
+    if (stats != null) {
+      stats.success();
+    }
+  }
+
+  public void failure(final URI uri) {
+    final Stats stats = this.statsFor(uri);
+    if (stats != null) {
+      stats.failure();
+    }
+  }
+
+  // how long to wait for a repository before asking the next one as well
+  public Duration hedgeDelay(final URI uri, final double percentile, final Duration minimum) {
+    final Stats stats = this.statsFor(uri);
+    final long delay = stats != null ? stats.percentile(percentile) : 0;
+    return delay > minimum.toNanos() ? Duration.ofNanos(delay) : minimum;
+  }
+
+  private @Nullable Stats statsFor(final URI uri) {
+    final String string = uri.toString();
+    for (final List<String> group : this.groups) {
+      for (final String base : group) {
+        if (string.startsWith(base)) {
+          return this.statsOf(base);
+        }
+      }
+    }
+    return null;
+  }
+
+  private Stats statsOf(final String base) {
+    return this.stats.computeIfAbsent(base, key -> new Stats());
+  }
+
+  private static String normalize(final URI uri) {
+    final String string = uri.toString();
+    return string.endsWith("/") ? string : string + "/";
+  }
+
+  @NullMarked
+  private static final class Stats {
+    private final long[] latencies = new long[WINDOW];
+    private int samples;
+    private double latency;
+    private int failures;
+    private long lastFailure;
+
+    synchronized void latency(final long nanos) {
+      this.latencies[this.samples % WINDOW] = nanos;
+      this.latency = this.samples == 0 ? nanos : this.latency + SMOOTHING * (nanos - this.latency);
+      this.samples++;
+    }
+
+    synchronized void success() {
+      this.failures = 0;
+    }
+
+    synchronized void failure() {
+      this.failures++;
+      this.lastFailure = System.nanoTime();
+    }
+
+    synchronized boolean healthy(final long now) {
+      return this.failures < UNHEALTHY_FAILURES || now - this.lastFailure > PROBATION;
+    }
+
+    synchronized double latency() {
+      return this.latency;
+    }
+
+    synchronized long percentile(final double percentile) {
+      final int count = Math.min(this.samples, WINDOW);
+      if (count == 0) {
+        return 0;
+      }
+      final long[] sorted = Arrays.copyOf(this.latencies, count);
+      Arrays.sort(sorted);
+      // a percentile of 0 still means the fastest sample rather than index -1
+      return sorted[Math.max(0, Math.min(count - 1, (int) Math.ceil(percentile * count) - 1))];
+    }
+  }
+}
@@ -25,8 +25,11 @@ package com.seiama.javaducks.util.crypto;
 
 import com.google.common.hash.HashCode;
 import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import org.jspecify.annotations.NullMarked;
@@ -51,4 +54,12 @@ public enum HashAlgorithm {
   public HashCode hash(final byte[] bytes) {
     return this.function.hashBytes(bytes);
   }
+
+  public Hasher hasher() {
+    return this.function.newHasher();
+  }
+
+  public HashingOutputStream hashing(final OutputStream output) {
+    return new HashingOutputStream(this.function, output);
+  }
 }
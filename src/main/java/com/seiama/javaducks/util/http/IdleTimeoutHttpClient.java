@@ -0,0 +1,233 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.util.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+// gives up on an exchange that stops moving rather than one that takes long: the response headers have
+// to arrive within the timeout and then every read of the body, so a large download is fine as long as
+// it keeps going. the request factory's read timeout would be a deadline for the whole body instead
+@NullMarked
+public final class IdleTimeoutHttpClient extends HttpClient {
+  private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    final Thread thread = new Thread(runnable, "javaducks-upstream-watchdog");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final HttpClient delegate;
+  private final Duration timeout;
+
+  public IdleTimeoutHttpClient(final HttpClient delegate, final Duration timeout) {
+    this.delegate = delegate;
+    this.timeout = timeout;
+  }
+
+  @Override
+  public Optional<CookieHandler> cookieHandler() {
+    return this.delegate.cookieHandler();
+  }
+
+  @Override
+  public Optional<Duration> connectTimeout() {
+    return this.delegate.connectTimeout();
+  }
+
+  @Override
+  public Redirect followRedirects() {
+    return this.delegate.followRedirects();
+  }
+
+  @Override
+  public Optional<ProxySelector> proxy() {
+    return this.delegate.proxy();
+  }
+
+  @Override
+  public SSLContext sslContext() {
+    return this.delegate.sslContext();
+  }
+
+  @Override
+  public SSLParameters sslParameters() {
+    return this.delegate.sslParameters();
+  }
+
+  @Override
+  public Optional<Authenticator> authenticator() {
+    return this.delegate.authenticator();
+  }
+
+  @Override
+  public Version version() {
+    return this.delegate.version();
+  }
+
+  @Override
+  public Optional<Executor> executor() {
+    return this.delegate.executor();
+  }
+
+  @Override
+  public <T> HttpResponse<T> send(final HttpRequest request, final HttpResponse.BodyHandler<T> handler) throws IOException, InterruptedException {
+    return this.delegate.send(this.timed(request), this.idle(handler));
+  }
+
+  @Override
+  public <T> CompletableFuture<HttpResponse<T>> sendAsync(final HttpRequest request, final HttpResponse.BodyHandler<T> handler) {
+    return this.delegate.sendAsync(this.timed(request), this.idle(handler));
+  }
+
+  @Override
+  public <T> CompletableFuture<HttpResponse<T>> sendAsync(final HttpRequest request, final HttpResponse.BodyHandler<T> handler, final HttpResponse.@Nullable PushPromiseHandler<T> pushPromiseHandler) {
+    return this.delegate.sendAsync(this.timed(request), this.idle(handler), pushPromiseHandler);
+  }
+
+  // the client's own timeout ends once the headers are in
+  private HttpRequest timed(final HttpRequest request) {
+    if (request.timeout().isPresent()) {
+      return request;
+    }
+    return HttpRequest.newBuilder(request, (name, value) -> true).timeout(this.timeout).build();
+  }
+
+  private <T> HttpResponse.BodyHandler<T> idle(final HttpResponse.BodyHandler<T> handler) {
+    // a streamed body is handed over before it arrives, the watch starts from there
+    return info -> HttpResponse.BodySubscribers.mapping(handler.apply(info), this::watched);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T watched(final T body) {
+    return body instanceof InputStream input ? (T) new IdleTimeoutInputStream(input, this.timeout) : body;
+  }
+
+  @NullMarked
+  static final class IdleTimeoutInputStream extends FilterInputStream {
+    private final long timeout;
+    private volatile long lastProgress = System.nanoTime();
+    private volatile boolean timedOut;
+    private volatile boolean closed;
+    private @Nullable ScheduledFuture<?> check;
+
+    IdleTimeoutInputStream(final InputStream input, final Duration timeout) {
+      super(input);
+      this.timeout = timeout.toNanos();
+      this.schedule(this.timeout);
+    }
+
+    private synchronized void schedule(final long delay) {
+      if (!this.closed) {
+        this.check = WATCHDOG.schedule(this::check, delay, TimeUnit.NANOSECONDS);
+      }
+    }
+
+    private void check() {
+      final long idle = System.nanoTime() - this.lastProgress;
+      if (idle < this.timeout) {
+        this.schedule(this.timeout - idle);
+        return;
+      }
+      this.timedOut = true;
+      try {
+        // unblocks the read waiting for the next chunk
+        this.close();
+      } catch (final IOException e) {
+        // closing anyway
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      try {
+        return this.progressed(super.read());
+      } catch (final IOException e) {
+        throw this.timedOut(e);
+      }
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+      try {
+        return this.progressed(super.read(buffer, offset, length));
+      } catch (final IOException e) {
+        throw this.timedOut(e);
+      }
+    }
+
+    private int progressed(final int read) throws IOException {
+      if (this.timedOut) {
+        // a closed stream may just end, which mustn't pass for the whole body
+        throw new HttpTimeoutException(this.message());
+      }
+      this.lastProgress = System.nanoTime();
+      return read;
+    }
+
+    private IOException timedOut(final IOException e) {
+      if (!this.timedOut || e instanceof HttpTimeoutException) {
+        return e;
+      }
+      final HttpTimeoutException timeout = new HttpTimeoutException(this.message());
+      timeout.initCause(e);
+      return timeout;
+    }
+
+    private String message() {
+      return "No data received for " + Duration.ofNanos(this.timeout);
+    }
+
+    @Override
+    public void close() throws IOException {
+      final ScheduledFuture<?> check;
+      synchronized (this) {
+        this.closed = true;
+        check = this.check;
+      }
+      if (check != null) {
+        check.cancel(false);
+      }
+      super.close();
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.util.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+// asks for gzip on the text responses (metadata and hashes, jars are compressed already and
+// resumed by byte offset) and times every exchange until its body is closed, per host
+@NullMarked
+public final class UpstreamInterceptor implements ClientHttpRequestInterceptor {
+  private static final String GZIP = "gzip";
+  private final MeterRegistry registry;
+
+  public UpstreamInterceptor(final MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public ClientHttpResponse intercept(final HttpRequest request, final byte[] body, final ClientHttpRequestExecution execution) throws IOException {
+    final String path = request.getURI().getPath();
+    final boolean compress = path != null && !path.endsWith(".jar") && !request.getHeaders().containsKey(HttpHeaders.ACCEPT_ENCODING);
+    if (compress) {
+      request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, GZIP);
+    }
+    final String host = request.getURI().getHost() != null ? request.getURI().getHost() : "none";
+    final String kind = kindOf(path);
+    final long start = System.nanoTime();
+    final ClientHttpResponse response;
+    try {
+      response = execution.execute(request, body);
+    } catch (final IOException e) {
+      this.record(host, kind, "IO_ERROR", start);
+      throw e;
+    }
+    final boolean gzipped = compress && GZIP.equalsIgnoreCase(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    return new UpstreamResponse(response, gzipped, () -> this.record(host, kind, outcomeOf(response), start));
+  }
+
+  private void record(final String host, final String kind, final String outcome, final long start) {
+    Timer.builder("javaducks.upstream.requests")
+      .tag("host", host)
+      .tag("kind", kind)
+      .tag("outcome", outcome)
+      .register(this.registry)
+      .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+  }
+
+  private static String kindOf(final @Nullable String path) {
+    if (path == null) {
+      return "other";
+    } else if (path.endsWith(".jar")) {
+      return "jar";
+    } else if (path.endsWith(".xml")) {
+      return "metadata";
+    }
+    return "hash";
+  }
+
+  private static String outcomeOf(final ClientHttpResponse response) {
+    try {
+      final HttpStatusCode status = response.getStatusCode();
+      if (status.is2xxSuccessful()) {
+        return "SUCCESS";
+      } else if (status.is3xxRedirection()) {
+        return "REDIRECTION";
+      } else if (status.is4xxClientError()) {
+        return "CLIENT_ERROR";
+      } else if (status.is5xxServerError()) {
+        return "SERVER_ERROR";
+      }
+      return "UNKNOWN";
+    } catch (final IOException e) {
+      return "IO_ERROR";
+    }
+  }
+
+  @NullMarked
+  private static final class UpstreamResponse implements ClientHttpResponse {
+    private final ClientHttpResponse delegate;
+    private final boolean gzipped;
+    private final Runnable onClose;
+    private @Nullable HttpHeaders headers;
+    private @Nullable InputStream body;
+    private boolean closed;
+
+    UpstreamResponse(final ClientHttpResponse delegate, final boolean gzipped, final Runnable onClose) {
+      this.delegate = delegate;
+      this.gzipped = gzipped;
+      this.onClose = onClose;
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() throws IOException {
+      return this.delegate.getStatusCode();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+      return this.delegate.getStatusText();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      if (!this.gzipped) {
+        return this.delegate.getHeaders();
+      }
+      if (this.headers == null) {
+        // describes the decompressed body from here on
+        final HttpHeaders headers = new HttpHeaders();
+        headers.putAll(this.delegate.getHeaders());
+        headers.remove(HttpHeaders.CONTENT_ENCODING);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        this.headers = headers;
+      }
+      return this.headers;
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+      if (this.body == null) {
+        this.body = this.gzipped ? new GZIPInputStream(this.delegate.getBody()) : this.delegate.getBody();
+      }
+      return this.body;
+    }
+
+    @Override
+    public void close() {
+      this.delegate.close();
+      if (!this.closed) {
+        this.closed = true;
+        this.onClose.run();
+      }
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.controller;
+
+import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.configuration.properties.ClusterConfiguration;
+import com.seiama.javaducks.configuration.properties.ServingConfiguration;
+import com.seiama.javaducks.configuration.properties.UpstreamConfiguration;
+import com.seiama.javaducks.service.EndpointService;
+import com.seiama.javaducks.service.JavadocService;
+import com.seiama.javaducks.service.javadoc.HotPaths;
+import com.seiama.javaducks.service.javadoc.InjectionBulkhead;
+import com.seiama.javaducks.service.javadoc.JavadocInjector;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import com.seiama.javaducks.service.javadoc.injection.HashedAssetInjection;
+import com.seiama.javaducks.util.maven.MavenHashType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.servlet.HandlerExecutionChain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class JavadocHandlerMappingTest {
+  private static final String STYLESHEET = "body { color: black; }";
+  private static final JavadocKey KEY = new JavadocKey("paper", "26.1");
+  private Path storage;
+  private JavadocService service;
+  private JavadocHandlerMapping mapping;
+  private MockMvc controller;
+
+  @BeforeEach
+  void setup() throws Exception {
+    this.storage = Files.createTempDirectory("javaducks-fast-path");
+    final Path jar = Files.createDirectories(this.storage.resolve("paper")).resolve("26.1.jar");
+    try (final ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      output.putNextEntry(new ZipEntry("index.html"));
+      output.write("<html><head><link rel=\"stylesheet\" href=\"stylesheet.css\"></head></html>".getBytes(StandardCharsets.UTF_8));
+      output.putNextEntry(new ZipEntry("stylesheet.css"));
+      output.write(STYLESHEET.getBytes(StandardCharsets.UTF_8));
+    }
+    final AppConfiguration configuration = new AppConfiguration(
+      URI.create("https://example.com"),
+      URI.create("https://example.com"),
+      this.storage,
+      List.of(new AppConfiguration.EndpointConfiguration(
+        "paper",
+        List.of(new AppConfiguration.EndpointConfiguration.Version("26.1", null, URI.create("http://repo.test/"), "io.papermc.paper", "paper-api", "26.1.1.build.28-alpha", AppConfiguration.EndpointConfiguration.Version.Type.MAVEN))
+      )),
+      List.of(MavenHashType.SHA512)
+    );
+    final ServingConfiguration serving = new ServingConfiguration(true, false, false, false, true, new ServingConfiguration.InjectionBulkhead(false, 16, 2, 64, Duration.ofMillis(250), Duration.ofSeconds(5), ServingConfiguration.InjectionBulkhead.Overload.REJECT));
+    final EndpointService endpoints = new EndpointService(configuration);
+    this.service = new JavadocService(configuration, endpoints, ClusterConfiguration.STANDALONE, UpstreamConfiguration.DEFAULT, RestClient.builder(), event -> {});
+    // writes the manifest and moves the assets into their blobs
+    this.service.warm(KEY);
+    final JavadocInjector injector = new JavadocInjector(List.of(new HashedAssetInjection(serving, this.service)), new InjectionBulkhead(serving, new SimpleMeterRegistry()));
+    final JavadocPreloads preloads = new JavadocPreloads(this.service, serving);
+    this.mapping = new JavadocHandlerMapping(endpoints, serving, this.service, injector, preloads);
+    this.controller = MockMvcBuilders.standaloneSetup(new JavadocController(this.service, injector, configuration, endpoints, serving, preloads)).build();
+  }
+
+  @Test
+  void servesSharedAssetsFromTheirBlob() throws Exception {
+    final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/paper/26.1/stylesheet.css");
+    request.setAttribute("org.apache.tomcat.sendfile.support", true);
+    final MockHttpServletResponse response = this.handle(request);
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getContentLengthLong()).isEqualTo(STYLESHEET.length());
+    final Object file = request.getAttribute("org.apache.tomcat.sendfile.filename");
+    assertThat(file).isInstanceOf(String.class);
+    assertThat(Path.of((String) file)).startsWith(this.storage.resolve(".blobs").toAbsolutePath());
+    assertThat(this.service.warmState(10).pages()).containsExactly(new HotPaths.Hit(KEY, "stylesheet.css", 1));
+  }
+
+  @Test
+  void controllerAndFastPathRecordTheSamePage() throws Exception {
+    this.controller.perform(get("/paper/26.1/stylesheet.css"))
+      .andExpect(status().isOk());
+    assertThat(this.handle(new MockHttpServletRequest("GET", "/paper/26.1/stylesheet.css")).getStatus()).isEqualTo(200);
+
+    assertThat(this.service.warmState(10).pages()).containsExactly(new HotPaths.Hit(KEY, "stylesheet.css", 2));
+  }
+
+  @Test
+  void missingPagesAreNotRecorded() throws Exception {
+    assertThat(this.handle(new MockHttpServletRequest("GET", "/paper/26.1/wp-login.php")).getStatus()).isEqualTo(404);
+    this.controller.perform(get("/paper/26.1/missing.html"))
+      .andExpect(status().isNotFound());
+
+    assertThat(this.service.warmState(10).pages()).isEmpty();
+    assertThat(this.service.firstServed()).isNull();
+  }
+
+  @Test
+  void rangeAndConditionalRequestsGoToTheController() throws Exception {
+    final MockHttpServletRequest range = new MockHttpServletRequest("GET", "/paper/26.1/stylesheet.css");
+    range.addHeader("Range", "bytes=0-3");
+    final MockHttpServletRequest conditional = new MockHttpServletRequest("GET", "/paper/26.1/stylesheet.css");
+    conditional.addHeader("If-Modified-Since", "Thu, 01 Jan 2026 00:00:00 GMT");
+
+    assertThat(this.mapping.getHandler(range)).isNull();
+    assertThat(this.mapping.getHandler(conditional)).isNull();
+    assertThat(this.mapping.getHandler(new MockHttpServletRequest("GET", "/paper/26.1/stylesheet.css"))).isNotNull();
+    this.controller.perform(get("/paper/26.1/stylesheet.css").header("Range", "bytes=0-3"))
+      .andExpect(status().isPartialContent());
+  }
+
+  @Test
+  void rewritesAssetReferencesToTheirHashedLocation() throws Exception {
+    final MockHttpServletResponse response = this.handle(new MockHttpServletRequest("GET", "/paper/26.1/"));
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getContentAsString()).contains("href=\"" + HashedAssetInjection.ASSETS).doesNotContain("href=\"stylesheet.css\"");
+  }
+
+  private MockHttpServletResponse handle(final MockHttpServletRequest request) throws Exception {
+    final HandlerExecutionChain chain = this.mapping.getHandler(request);
+    assertThat(chain).isNotNull();
+    final MockHttpServletResponse response = new MockHttpServletResponse();
+    ((HttpRequestHandler) chain.getHandler()).handleRequest(request, response);
+    return response;
+  }
+}
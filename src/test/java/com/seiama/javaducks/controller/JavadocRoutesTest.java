@@ -0,0 +1,68 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.controller;
+
+import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JavadocRoutesTest {
+  private static final JavadocRoutes ROUTES = new JavadocRoutes(new AppConfiguration(
+    URI.create("https://example.com"),
+    URI.create("https://example.com"),
+    Path.of("storage"),
+    List.of(
+      new AppConfiguration.EndpointConfiguration("paper", List.of(version("1.20"), version("1.20.6"), version("1.21"))),
+      new AppConfiguration.EndpointConfiguration("velocity", List.of(version("3.4.0-SNAPSHOT")))
+    ),
+    List.of()
+  ).endpoints());
+
+  @Test
+  void matchesConfiguredVersions() {
+    assertThat(ROUTES.match("/paper/1.20.6/org/bukkit/Bukkit.html", 0)).isEqualTo(new JavadocKey("paper", "1.20.6"));
+    assertThat(ROUTES.match("/paper/1.20/", 0)).isEqualTo(new JavadocKey("paper", "1.20"));
+    assertThat(ROUTES.match("/ctx/velocity/3.4.0-SNAPSHOT/index.html", 4)).isEqualTo(new JavadocKey("velocity", "3.4.0-SNAPSHOT"));
+  }
+
+  @Test
+  void leavesEverythingElseToTheController() {
+    assertThat(ROUTES.match("/paper/1.20.6", 0)).isNull();
+    assertThat(ROUTES.match("/paper/1.2/", 0)).isNull();
+    assertThat(ROUTES.match("/paper/1.19/index.html", 0)).isNull();
+    assertThat(ROUTES.match("/pape/1.20/index.html", 0)).isNull();
+    assertThat(ROUTES.match("/paper/", 0)).isNull();
+    assertThat(ROUTES.match("/", 0)).isNull();
+    assertThat(ROUTES.match("", 0)).isNull();
+  }
+
+  private static AppConfiguration.EndpointConfiguration.Version version(final String name) {
+    return new AppConfiguration.EndpointConfiguration.Version(name, null, URI.create("https://repo.test/"), "io.papermc.paper", "paper-api", name, AppConfiguration.EndpointConfiguration.Version.Type.MAVEN);
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.controller;
+
+import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.configuration.properties.RateLimitConfiguration;
+import com.seiama.javaducks.service.EndpointService;
+import com.seiama.javaducks.service.RateLimitService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitFilterTest {
+  private static final String GOOGLEBOT = "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)";
+  private static final String BROWSER = "Mozilla/5.0 (X11; Linux x86_64; rv:128.0) Gecko/20100101 Firefox/128.0";
+  private final RateLimitFilter filter = filter();
+
+  @Test
+  void crawlersShareABucketAcrossAddresses() throws Exception {
+    for (int i = 0; i < 2; i++) {
+      assertThat(this.request("/paper/1.21/index.html", "66.249.66." + i, GOOGLEBOT).getStatus()).isEqualTo(200);
+    }
+    assertThat(this.request("/paper/1.21/index.html", "66.249.66.9", GOOGLEBOT).getStatus()).isEqualTo(429);
+
+    // people with the same browser are told apart by their address
+    for (int i = 0; i < 2; i++) {
+      assertThat(this.request("/paper/1.21/index.html", "10.0.0.1", BROWSER).getStatus()).isEqualTo(200);
+    }
+    assertThat(this.request("/paper/1.21/index.html", "10.0.0.2", BROWSER).getStatus()).isEqualTo(200);
+  }
+
+  @Test
+  void outdatedVersionsHaveTheirOwnBudget() throws Exception {
+    assertThat(this.request("/paper/1.20/index.html", "10.0.0.1", BROWSER).getStatus()).isEqualTo(200);
+    assertThat(this.request("/paper/1.20/org/bukkit/Server.html", "10.0.0.1", BROWSER).getStatus()).isEqualTo(429);
+    // the latest version and unknown versions aren't outdated
+    assertThat(this.request("/paper/1.21/index.html", "10.0.0.1", BROWSER).getStatus()).isEqualTo(200);
+    assertThat(this.request("/paper/1.19/index.html", "10.0.0.1", BROWSER).getStatus()).isEqualTo(200);
+  }
+
+  @Test
+  void rejectionsSayWhenToComeBack() throws Exception {
+    this.request("/paper/1.20/index.html", "10.0.0.1", BROWSER);
+    final MockFilterChain chain = new MockFilterChain();
+    final MockHttpServletResponse response = this.request("/paper/1.20/index.html", "10.0.0.1", BROWSER, chain);
+
+    assertThat(response.getStatus()).isEqualTo(429);
+    // a thousand seconds per request, rounded up
+    assertThat(Long.parseLong(response.getHeader("Retry-After"))).isBetween(999L, 1000L);
+    assertThat(response.getHeader("Cache-Control")).isEqualTo("no-store");
+    assertThat(chain.getRequest()).isNull();
+  }
+
+  @Test
+  void budgetsNeedAPositiveRate() {
+    assertThatThrownBy(() -> new RateLimitConfiguration.Budget(0, 10)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new RateLimitConfiguration.Budget(-1, 10)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new RateLimitConfiguration.Budget(Double.NaN, 10)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private MockHttpServletResponse request(final String uri, final String address, final String userAgent) throws Exception {
+    return this.request(uri, address, userAgent, new MockFilterChain());
+  }
+
+  private MockHttpServletResponse request(final String uri, final String address, final String userAgent, final MockFilterChain chain) throws Exception {
+    final MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+    request.setRemoteAddr(address);
+    request.addHeader("User-Agent", userAgent);
+    final MockHttpServletResponse response = new MockHttpServletResponse();
+    this.filter.doFilter(request, response, chain);
+    return response;
+  }
+
+  private static RateLimitFilter filter() {
+    final AppConfiguration configuration = new AppConfiguration(
+      URI.create("https://example.com"),
+      URI.create("https://example.com"),
+      Path.of("storage"),
+      List.of(new AppConfiguration.EndpointConfiguration("paper", List.of(
+        new AppConfiguration.EndpointConfiguration.Version("1.20", "https://example.com/1.20", null, null, null, null, AppConfiguration.EndpointConfiguration.Version.Type.REDIRECT),
+        new AppConfiguration.EndpointConfiguration.Version("1.21", "https://example.com/1.21", null, null, null, null, AppConfiguration.EndpointConfiguration.Version.Type.REDIRECT)
+      ))),
+      List.of()
+    );
+    final RateLimitConfiguration rateLimit = new RateLimitConfiguration(
+      true,
+      RateLimitConfiguration.ClientKey.USER_AGENT,
+      new RateLimitConfiguration.Budget(0.001, 2),
+      new RateLimitConfiguration.Budget(0.001, 1),
+      Map.of(),
+      1000
+    );
+    return new RateLimitFilter(new EndpointService(configuration), rateLimit, new RateLimitService(rateLimit, new SimpleMeterRegistry()));
+  }
+}
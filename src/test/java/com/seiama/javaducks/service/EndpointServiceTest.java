@@ -0,0 +1,109 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service;
+
+import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.configuration.properties.ReloadConfiguration;
+import com.seiama.javaducks.service.javadoc.EndpointsChangedEvent;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import com.seiama.javaducks.util.maven.MavenHashType;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EndpointServiceTest {
+  private static final AppConfiguration CONFIGURATION = new AppConfiguration(
+    URI.create("https://example.com"),
+    URI.create("https://example.com"),
+    Path.of("storage"),
+    List.of(new AppConfiguration.EndpointConfiguration("paper", List.of(version("1.20", "1.20.6-R0.1-SNAPSHOT"), version("1.21", "1.21.1-R0.1-SNAPSHOT")))),
+    List.of(MavenHashType.SHA512)
+  );
+
+  @Test
+  void applyReportsOnlyTheVersionsThatDiffer() {
+    final List<Object> events = new ArrayList<>();
+    final EndpointService service = new EndpointService(CONFIGURATION, new ReloadConfiguration(null), events::add);
+
+    final EndpointsChangedEvent event = service.apply(List.of(
+      new AppConfiguration.EndpointConfiguration("paper", List.of(version("1.21", "1.21.4-R0.1-SNAPSHOT"), version("1.21.5", "1.21.5-R0.1-SNAPSHOT")))
+    ));
+
+    assertThat(event).isEqualTo(new EndpointsChangedEvent(Set.of(new JavadocKey("paper", "1.21.5")), Set.of(new JavadocKey("paper", "1.20")), Set.of(new JavadocKey("paper", "1.21"))));
+    assertThat(events).containsExactly(event);
+    assertThat(service.endpoint("paper", "1.20")).isNull();
+    assertThat(service.endpoint("paper", "1.21.5")).isNotNull();
+    assertThat(service.apply(service.endpoints())).isNull();
+    assertThat(events).hasSize(1);
+  }
+
+  @Test
+  void reloadBindsTheEndpointsFile() throws Exception {
+    final Path file = Files.createTempDirectory("javaducks-endpoints").resolve("endpoints.yml");
+    Files.writeString(file, """
+      app:
+        endpoints:
+          - name: paper
+            versions:
+              - name: "1.20"
+                repository: https://repo.papermc.io/repository/maven-public/
+                group: io.papermc.paper
+                artifact: paper-api
+                version: 1.20.6-R0.1-SNAPSHOT
+                type: MAVEN
+              - name: "1.21"
+                repository: https://repo.papermc.io/repository/maven-public/
+                group: io.papermc.paper
+                artifact: paper-api
+                version: 1.21.1-R0.1-SNAPSHOT
+                type: MAVEN
+              - name: "1.8"
+                path: https://example.com/1.8/
+                type: REDIRECT
+      """);
+    final List<Object> events = new ArrayList<>();
+    final EndpointService service = new EndpointService(CONFIGURATION, new ReloadConfiguration(file), events::add);
+
+    service.reload(file);
+
+    assertThat(events).containsExactly(new EndpointsChangedEvent(Set.of(new JavadocKey("paper", "1.8")), Set.of(), Set.of()));
+    assertThat(service.endpoint("paper", "1.8").redirectUri()).isEqualTo(URI.create("https://example.com/1.8/"));
+
+    // a broken file leaves the endpoints alone
+    Files.writeString(file, "app:\n  endpoints:\n    - name: [");
+    service.reload(file);
+    assertThat(service.endpoints()).hasSize(1);
+    assertThat(events).hasSize(1);
+  }
+
+  private static AppConfiguration.EndpointConfiguration.Version version(final String name, final String version) {
+    return new AppConfiguration.EndpointConfiguration.Version(name, null, URI.create("https://repo.papermc.io/repository/maven-public/"), "io.papermc.paper", "paper-api", version, AppConfiguration.EndpointConfiguration.Version.Type.MAVEN);
+  }
+}
@@ -24,19 +24,39 @@
 package com.seiama.javaducks.service;
 
 import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.configuration.properties.ClusterConfiguration;
+import com.seiama.javaducks.configuration.properties.UpstreamConfiguration;
+import com.seiama.javaducks.service.javadoc.JavadocInstalledEvent;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
 import com.seiama.javaducks.util.crypto.HashAlgorithm;
 import com.seiama.javaducks.util.maven.MavenHashType;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.web.client.ExpectedCount;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestClient;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 class JavadocServiceTest {
@@ -127,6 +147,317 @@ class JavadocServiceTest {
     server.verify();
   }
 
+  @Test
+  void refreshAllLinksVersionsSharingAJarInsteadOfDownloadingTwice() throws Exception {
+    final byte[] jarBytes = "jar".getBytes(StandardCharsets.UTF_8);
+    final String sha512 = HashAlgorithm.SHA512.hash(jarBytes).toString();
+
+    final RestClient.Builder builder = RestClient.builder();
+    final MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+    final RestClient restClient = builder.build();
+
+    final String jarUri = "http://repo.test/io/papermc/paper/paper-api/26.1.1.build.28-alpha/paper-api-26.1.1.build.28-alpha-javadoc.jar";
+    final String hashUri = jarUri + ".sha512";
+
+    server.expect(requestTo(hashUri)).andRespond(withSuccess(sha512, MediaType.TEXT_PLAIN));
+    server.expect(requestTo(jarUri)).andRespond(withSuccess(jarBytes, MediaType.APPLICATION_OCTET_STREAM));
+    server.expect(requestTo(hashUri)).andRespond(withSuccess(sha512, MediaType.TEXT_PLAIN));
+
+    final Path storage = Files.createTempDirectory("javaducks-shared-jar");
+    final AppConfiguration configuration = new AppConfiguration(
+      java.net.URI.create("https://example.com"),
+      java.net.URI.create("https://example.com"),
+      storage,
+      List.of(new AppConfiguration.EndpointConfiguration(
+        "paper",
+        List.of(
+          new AppConfiguration.EndpointConfiguration.Version("26.1.1", null, java.net.URI.create("http://repo.test/"), "io.papermc.paper", "paper-api", "26.1.1.build.28-alpha", AppConfiguration.EndpointConfiguration.Version.Type.MAVEN),
+          new AppConfiguration.EndpointConfiguration.Version("26.1", null, java.net.URI.create("http://repo.test/"), "io.papermc.paper", "paper-api", "26.1.1.build.28-alpha", AppConfiguration.EndpointConfiguration.Version.Type.MAVEN)
+        )
+      )),
+      List.of(MavenHashType.SHA512)
+    );
+
+    new JavadocService(configuration, restClient).refreshAll();
+
+    assertThat(Files.readAllBytes(storage.resolve("paper").resolve("26.1.jar"))).isEqualTo(jarBytes);
+    assertThat(Files.isSameFile(storage.resolve("paper").resolve("26.1.1.jar"), storage.resolve("paper").resolve("26.1.jar"))).isTrue();
+
+    server.verify();
+  }
+
+  @Test
+  void refreshAllFillsJarsFromPeersBeforeTheMavenRepository() throws Exception {
+    final byte[] jarBytes = "jar".getBytes(StandardCharsets.UTF_8);
+    final String sha512 = HashAlgorithm.SHA512.hash(jarBytes).toString();
+
+    final RestClient.Builder builder = RestClient.builder();
+    final MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+    final RestClient restClient = builder.build();
+
+    final String jarUri = "http://repo.test/io/papermc/paper/paper-api/26.1.1.build.28-alpha/paper-api-26.1.1.build.28-alpha-javadoc.jar";
+
+    server.expect(requestTo(jarUri + ".sha512")).andRespond(withSuccess(sha512, MediaType.TEXT_PLAIN));
+    // the first peer has an older build installed
+    server.expect(requestTo("http://peer-a.test/_internal/jars/paper/26.1"))
+      .andRespond(withStatus(HttpStatus.PRECONDITION_FAILED));
+    server.expect(requestTo("http://peer-b.test/_internal/jars/paper/26.1"))
+      .andExpect(header(HttpHeaders.AUTHORIZATION, "Bearer secret"))
+      .andExpect(header(HttpHeaders.IF_MATCH, "\"sha512-" + sha512 + "\""))
+      .andRespond(withSuccess(jarBytes, MediaType.APPLICATION_OCTET_STREAM));
+
+    final Path storage = Files.createTempDirectory("javaducks-peer-fill");
+    final AppConfiguration configuration = new AppConfiguration(
+      java.net.URI.create("https://example.com"),
+      java.net.URI.create("https://example.com"),
+      storage,
+      List.of(new AppConfiguration.EndpointConfiguration(
+        "paper",
+        List.of(new AppConfiguration.EndpointConfiguration.Version("26.1", null, java.net.URI.create("http://repo.test/"), "io.papermc.paper", "paper-api", "26.1.1.build.28-alpha", AppConfiguration.EndpointConfiguration.Version.Type.MAVEN))
+      )),
+      List.of(MavenHashType.SHA512)
+    );
+    final ClusterConfiguration cluster = new ClusterConfiguration("secret", List.of(java.net.URI.create("http://peer-a.test"), java.net.URI.create("http://peer-b.test/")), false, ClusterConfiguration.Role.ALL);
+
+    new JavadocService(configuration, cluster, UpstreamConfiguration.DEFAULT, restClient, event -> {}).refreshAll();
+
+    assertThat(Files.readAllBytes(storage.resolve("paper").resolve("26.1.jar"))).isEqualTo(jarBytes);
+
+    server.verify();
+  }
+
+  @Test
+  void serveRoleLoadsInstalledJarsWithoutCallingOut() throws Exception {
+    final RestClient.Builder builder = RestClient.builder();
+    final MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+
+    final Path storage = Files.createTempDirectory("javaducks-serve-role");
+    final Path jar = Files.createDirectories(storage.resolve("paper")).resolve("26.1.jar");
+    try (final ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      output.putNextEntry(new ZipEntry("index.html"));
+      output.write("<html></html>".getBytes(StandardCharsets.UTF_8));
+    }
+    final AppConfiguration configuration = new AppConfiguration(
+      java.net.URI.create("https://example.com"),
+      java.net.URI.create("https://example.com"),
+      storage,
+      List.of(new AppConfiguration.EndpointConfiguration(
+        "paper",
+        List.of(new AppConfiguration.EndpointConfiguration.Version("26.1", null, java.net.URI.create("http://repo.test/"), "io.papermc.paper", "paper-api", "26.1.1.build.28-alpha", AppConfiguration.EndpointConfiguration.Version.Type.MAVEN))
+      )),
+      List.of(MavenHashType.SHA512)
+    );
+    final ClusterConfiguration cluster = new ClusterConfiguration(null, List.of(), true, ClusterConfiguration.Role.SERVE);
+    final List<Object> events = new ArrayList<>();
+
+    new JavadocService(configuration, cluster, UpstreamConfiguration.DEFAULT, builder.build(), events::add).refreshAll();
+
+    assertThat(events).containsExactly(new JavadocInstalledEvent(new JavadocKey("paper", "26.1"), jar));
+    assertThat(Files.exists(storage.resolve("paper").resolve("26.1.manifest"))).isFalse();
+
+    server.verify();
+  }
+
+  @Test
+  void warmOpensInstalledJarsAndRefreshesWaitUntilWarm() throws Exception {
+    final RestClient.Builder builder = RestClient.builder();
+    final MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+
+    final Path storage = Files.createTempDirectory("javaducks-warm");
+    final Path jar = Files.createDirectories(storage.resolve("paper")).resolve("26.1.jar");
+    try (final ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+      output.putNextEntry(new ZipEntry("index.html"));
+      output.write("<html></html>".getBytes(StandardCharsets.UTF_8));
+    }
+    final AppConfiguration configuration = new AppConfiguration(
+      java.net.URI.create("https://example.com"),
+      java.net.URI.create("https://example.com"),
+      storage,
+      List.of(new AppConfiguration.EndpointConfiguration(
+        "paper",
+        List.of(new AppConfiguration.EndpointConfiguration.Version("26.1", null, java.net.URI.create("http://repo.test/"), "io.papermc.paper", "paper-api", "26.1.1.build.28-alpha", AppConfiguration.EndpointConfiguration.Version.Type.MAVEN))
+      )),
+      List.of(MavenHashType.SHA512)
+    );
+    final List<Object> events = new ArrayList<>();
+    final JavadocService service = new JavadocService(configuration, ClusterConfiguration.STANDALONE, UpstreamConfiguration.DEFAULT, builder.build(), events::add);
+
+    service.refreshDue();
+    service.warm(new JavadocKey("paper", "26.1"));
+
+    assertThat(events).containsExactly(new JavadocInstalledEvent(new JavadocKey("paper", "26.1"), jar));
+    assertThat(service.firstServed()).isNull();
+    assertThat(service.contentsFor(new JavadocKey("paper", "26.1"), "index.html")).isNotNull();
+    assertThat(service.firstServed()).isNotNull();
+
+    server.verify();
+  }
+
+  @Test
+  void refreshAllResumesInterruptedDownloadsWithRange() throws Exception {
+    final byte[] jarBytes = "jar".getBytes(StandardCharsets.UTF_8);
+    final String sha512 = HashAlgorithm.SHA512.hash(jarBytes).toString();
+
+    final RestClient.Builder builder = RestClient.builder();
+    final MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+
+    final String jarUri = "http://repo.test/io/papermc/paper/paper-api/26.1.1.build.28-alpha/paper-api-26.1.1.build.28-alpha-javadoc.jar";
+
+    server.expect(requestTo(jarUri + ".sha512")).andRespond(withSuccess(sha512, MediaType.TEXT_PLAIN));
+    // the connection drops after two bytes
+    server.expect(requestTo(jarUri)).andRespond(request -> {
+      final MockClientHttpResponse response = new MockClientHttpResponse(new SequenceInputStream(new ByteArrayInputStream(jarBytes, 0, 2), new InputStream() {
+        @Override
+        public int read() throws IOException {
+          throw new IOException("Connection reset");
+        }
+      }), HttpStatus.OK);
+      response.getHeaders().setETag("\"v1\"");
+      return response;
+    });
+    server.expect(requestTo(jarUri))
+      .andExpect(header(HttpHeaders.RANGE, "bytes=2-"))
+      .andExpect(header(HttpHeaders.IF_RANGE, "\"v1\""))
+      .andRespond(withStatus(HttpStatus.PARTIAL_CONTENT).header(HttpHeaders.CONTENT_RANGE, "bytes 2-2/3").body(new byte[]{jarBytes[2]}));
+
+    final Path storage = Files.createTempDirectory("javaducks-resume");
+    final AppConfiguration configuration = new AppConfiguration(
+      java.net.URI.create("https://example.com"),
+      java.net.URI.create("https://example.com"),
+      storage,
+      List.of(new AppConfiguration.EndpointConfiguration(
+        "paper",
+        List.of(new AppConfiguration.EndpointConfiguration.Version("26.1", null, java.net.URI.create("http://repo.test/"), "io.papermc.paper", "paper-api", "26.1.1.build.28-alpha", AppConfiguration.EndpointConfiguration.Version.Type.MAVEN))
+      )),
+      List.of(MavenHashType.SHA512)
+    );
+    final UpstreamConfiguration upstream = new UpstreamConfiguration(Duration.ofSeconds(5), Duration.ofSeconds(60), true, new UpstreamConfiguration.Retry(3, Duration.ofMillis(1), Duration.ofMillis(1)), List.of(), UpstreamConfiguration.DEFAULT.hedging(), UpstreamConfiguration.DEFAULT.schedule());
+
+    new JavadocService(configuration, ClusterConfiguration.STANDALONE, upstream, builder.build(), event -> {}).refreshAll();
+
+    assertThat(Files.readAllBytes(storage.resolve("paper").resolve("26.1.jar"))).isEqualTo(jarBytes);
+
+    server.verify();
+  }
+
+  @Test
+  void refreshAllFallsBackToMirrorsWhenTheRepositoryIsDown() throws Exception {
+    final byte[] jarBytes = "jar".getBytes(StandardCharsets.UTF_8);
+    final String sha512 = HashAlgorithm.SHA512.hash(jarBytes).toString();
+
+    final RestClient.Builder builder = RestClient.builder();
+    final MockRestServiceServer server = MockRestServiceServer.bindTo(builder).ignoreExpectOrder(true).build();
+
+    final String jarPath = "io/papermc/paper/paper-api/26.1.1.build.28-alpha/paper-api-26.1.1.build.28-alpha-javadoc.jar";
+
+    server.expect(requestTo("http://repo.test/" + jarPath + ".sha512")).andRespond(withServerError());
+    server.expect(ExpectedCount.between(0, 1), requestTo("http://repo.test/" + jarPath)).andRespond(withServerError());
+    server.expect(requestTo("http://mirror.test/maven/" + jarPath + ".sha512")).andRespond(withSuccess(sha512, MediaType.TEXT_PLAIN));
+    server.expect(requestTo("http://mirror.test/maven/" + jarPath)).andRespond(withSuccess(jarBytes, MediaType.APPLICATION_OCTET_STREAM));
+
+    final Path storage = Files.createTempDirectory("javaducks-mirrors");
+    final AppConfiguration configuration = new AppConfiguration(
+      java.net.URI.create("https://example.com"),
+      java.net.URI.create("https://example.com"),
+      storage,
+      List.of(new AppConfiguration.EndpointConfiguration(
+        "paper",
+        List.of(new AppConfiguration.EndpointConfiguration.Version("26.1", null, java.net.URI.create("http://repo.test/"), "io.papermc.paper", "paper-api", "26.1.1.build.28-alpha", AppConfiguration.EndpointConfiguration.Version.Type.MAVEN))
+      )),
+      List.of(MavenHashType.SHA512)
+    );
+    final UpstreamConfiguration upstream = new UpstreamConfiguration(
+      Duration.ofSeconds(5),
+      Duration.ofSeconds(60),
+      true,
+      new UpstreamConfiguration.Retry(1, Duration.ofMillis(1), Duration.ofMillis(1)),
+      List.of(new UpstreamConfiguration.Mirror(java.net.URI.create("http://repo.test"), List.of(java.net.URI.create("http://mirror.test/maven/")))),
+      UpstreamConfiguration.DEFAULT.hedging(),
+      UpstreamConfiguration.DEFAULT.schedule()
+    );
+
+    new JavadocService(configuration, ClusterConfiguration.STANDALONE, upstream, builder.build(), event -> {}).refreshAll();
+
+    assertThat(Files.readAllBytes(storage.resolve("paper").resolve("26.1.jar"))).isEqualTo(jarBytes);
+
+    server.verify();
+  }
+
+  @Test
+  void refreshAllProbesHashTypesAtOnceAndRemembersTheStrongest() throws Exception {
+    final byte[] jarBytes = "jar".getBytes(StandardCharsets.UTF_8);
+
+    final RestClient.Builder builder = RestClient.builder();
+    final MockRestServiceServer server = MockRestServiceServer.bindTo(builder).ignoreExpectOrder(true).build();
+
+    final String jarUri = "http://repo.test/io/papermc/paper/paper-api/26.1.1.build.28-alpha/paper-api-26.1.1.build.28-alpha-javadoc.jar";
+
+    server.expect(requestTo(jarUri + ".sha512")).andRespond(withStatus(HttpStatus.NOT_FOUND));
+    server.expect(requestTo(jarUri + ".sha256")).andRespond(withSuccess(HashAlgorithm.SHA256.hash(jarBytes).toString(), MediaType.TEXT_PLAIN));
+    server.expect(requestTo(jarUri + ".sha1")).andRespond(withSuccess(HashAlgorithm.SHA1.hash(jarBytes).toString(), MediaType.TEXT_PLAIN));
+    server.expect(requestTo(jarUri)).andRespond(withSuccess(jarBytes, MediaType.APPLICATION_OCTET_STREAM));
+
+    final Path storage = Files.createTempDirectory("javaducks-hash-types");
+    final AppConfiguration configuration = new AppConfiguration(
+      java.net.URI.create("https://example.com"),
+      java.net.URI.create("https://example.com"),
+      storage,
+      List.of(new AppConfiguration.EndpointConfiguration(
+        "paper",
+        List.of(new AppConfiguration.EndpointConfiguration.Version("26.1", null, java.net.URI.create("http://repo.test/"), "io.papermc.paper", "paper-api", "26.1.1.build.28-alpha", AppConfiguration.EndpointConfiguration.Version.Type.MAVEN))
+      )),
+      List.of(MavenHashType.SHA512, MavenHashType.SHA256, MavenHashType.SHA1)
+    );
+
+    new JavadocService(configuration, builder.build()).refreshAll();
+
+    assertThat(Files.readAllBytes(storage.resolve("paper").resolve("26.1.jar"))).isEqualTo(jarBytes);
+    assertThat(Files.readString(storage.resolve(".hash-types"))).isEqualTo("repo.test\tSHA256\n");
+
+    server.verify();
+  }
+
+  @Test
+  void removedVersionLeavesNothingBehind() throws Exception {
+    final Path storage = Files.createTempDirectory("javaducks-release");
+    final Path project = Files.createDirectories(storage.resolve("paper"));
+    try (final ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(project.resolve("26.1.jar")))) {
+      output.putNextEntry(new ZipEntry("index.html"));
+      output.write("<html></html>".getBytes(StandardCharsets.UTF_8));
+    }
+    final AppConfiguration.EndpointConfiguration.Version redirect = new AppConfiguration.EndpointConfiguration.Version("1.7", "https://example.com/1.7", null, null, null, null, AppConfiguration.EndpointConfiguration.Version.Type.REDIRECT);
+    final AppConfiguration configuration = new AppConfiguration(
+      java.net.URI.create("https://example.com"),
+      java.net.URI.create("https://example.com"),
+      storage,
+      List.of(new AppConfiguration.EndpointConfiguration(
+        "paper",
+        List.of(new AppConfiguration.EndpointConfiguration.Version("26.1", null, java.net.URI.create("http://repo.test/"), "io.papermc.paper", "paper-api", "26.1.1.build.28-alpha", AppConfiguration.EndpointConfiguration.Version.Type.MAVEN), redirect)
+      )),
+      List.of(MavenHashType.SHA512)
+    );
+    final EndpointService endpoints = new EndpointService(configuration);
+    final JavadocService service = new JavadocService(configuration, endpoints, ClusterConfiguration.STANDALONE, UpstreamConfiguration.DEFAULT, RestClient.builder(), event -> {});
+    // an installed release is only resolved, not downloaded again
+    service.refreshAll();
+    for (final String name : List.of("26.1.manifest", "26.1.fulltext", "26.1.fulltext-source", "26.1.lease")) {
+      Files.writeString(project.resolve(name), name);
+    }
+    final String jarUri = "http://repo.test/io/papermc/paper/paper-api/26.1.1.build.28-alpha/paper-api-26.1.1.build.28-alpha-javadoc.jar";
+    final Path partial = Files.createDirectories(storage.resolve(".blobs").resolve("jars")).resolve(HashAlgorithm.SHA256.hash(jarUri.getBytes(StandardCharsets.UTF_8)) + ".partial");
+    Files.writeString(partial, "ja");
+    Files.writeString(partial.resolveSibling(partial.getFileName() + ".validator"), "\"etag\"");
+
+    service.onEndpointsChanged(endpoints.apply(List.of(new AppConfiguration.EndpointConfiguration("paper", List.of(redirect)))));
+    service.refreshAll();
+
+    try (final Stream<Path> files = Files.list(project)) {
+      assertThat(files.map(file -> file.getFileName().toString())).noneMatch(name -> name.startsWith("26.1."));
+    }
+    assertThat(partial).doesNotExist();
+    assertThat(partial.resolveSibling(partial.getFileName() + ".validator")).doesNotExist();
+  }
+
   private static String metadata() {
     return """
       <metadata>
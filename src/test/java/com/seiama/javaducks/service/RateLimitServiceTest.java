@@ -0,0 +1,69 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service;
+
+import com.seiama.javaducks.configuration.properties.RateLimitConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitServiceTest {
+
+  @Test
+  void acquireAllowsBurstThenRejectsPerClient() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final RateLimitService service = service(registry);
+
+    for (int i = 0; i < 5; i++) {
+      assertThat(service.acquire("paper", false, "10.0.0.1")).isZero();
+    }
+    assertThat(service.acquire("paper", false, "10.0.0.1")).isPositive();
+    assertThat(service.acquire("paper", false, "10.0.0.2")).isZero();
+    assertThat(registry.get("javaducks.rate.limit.requests").tag("budget", "paper").tag("outcome", "rejected").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void acquireUsesSeparateBudgetsForOutdatedVersions() {
+    final RateLimitService service = service(new SimpleMeterRegistry());
+
+    assertThat(service.acquire("paper", true, "googlebot")).isZero();
+    assertThat(service.acquire("paper", true, "googlebot")).isPositive();
+    // the latest version still has budget left
+    assertThat(service.acquire("paper", false, "googlebot")).isZero();
+    assertThat(service.acquire("velocity", false, "googlebot")).isZero();
+  }
+
+  private static RateLimitService service(final SimpleMeterRegistry registry) {
+    return new RateLimitService(new RateLimitConfiguration(
+      true,
+      RateLimitConfiguration.ClientKey.CLIENT_IP,
+      new RateLimitConfiguration.Budget(0.001, 10),
+      new RateLimitConfiguration.Budget(0.001, 1),
+      Map.of("paper", new RateLimitConfiguration.Budget(0.001, 5)),
+      1000
+    ), registry);
+  }
+}
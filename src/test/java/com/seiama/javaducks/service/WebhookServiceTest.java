@@ -0,0 +1,113 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service;
+
+import com.seiama.javaducks.configuration.properties.AppConfiguration;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import com.seiama.javaducks.util.maven.MavenHashType;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebhookServiceTest {
+  private static final AppConfiguration CONFIGURATION = new AppConfiguration(
+    URI.create("https://example.com"),
+    URI.create("https://example.com"),
+    Path.of("storage"),
+    List.of(new AppConfiguration.EndpointConfiguration(
+      "paper",
+      List.of(
+        version("1.21", "1.21.1-R0.1-SNAPSHOT"),
+        version("26.1", "26.1.1.build.+"),
+        version("1.8", "1.8.8-R0.1-SNAPSHOT"),
+        new AppConfiguration.EndpointConfiguration.Version("1.7", "https://example.com/1.7", null, null, null, null, AppConfiguration.EndpointConfiguration.Version.Type.REDIRECT)
+      )
+    )),
+    List.of(MavenHashType.SHA512)
+  );
+
+  @Test
+  void publishedMatchesOnlyTheVersionsOfTheArtifact() {
+    final WebhookService service = new WebhookService(new EndpointService(CONFIGURATION), Duration.ofMinutes(1), Duration.ofMinutes(1), key -> JavadocService.Refresh.REFRESHED);
+    try {
+      assertThat(service.published("io.papermc.paper", "paper-api", "1.21.1-R0.1-20240601.120000-3")).containsExactly(new JavadocKey("paper", "1.21"));
+      assertThat(service.published("io.papermc.paper", "paper-api", "26.1.1.build.29-alpha")).containsExactly(new JavadocKey("paper", "26.1"));
+      assertThat(service.published("io.papermc.paper", "paper-api", null)).containsExactly(new JavadocKey("paper", "1.21"), new JavadocKey("paper", "26.1"), new JavadocKey("paper", "1.8"));
+      assertThat(service.published("io.papermc.paper", "paper-server", null)).isEmpty();
+    } finally {
+      service.shutdown();
+    }
+  }
+
+  @Test
+  void burstsOfNotificationsRefreshOnce() throws Exception {
+    final List<JavadocKey> refreshed = new CopyOnWriteArrayList<>();
+    final CountDownLatch latch = new CountDownLatch(1);
+    final WebhookService service = new WebhookService(new EndpointService(CONFIGURATION), Duration.ofMillis(100), Duration.ofMinutes(1), key -> {
+      refreshed.add(key);
+      latch.countDown();
+      return JavadocService.Refresh.REFRESHED;
+    });
+    try {
+      for (int i = 0; i < 5; i++) {
+        service.published("io.papermc.paper", "paper-api", "1.21.1-R0.1-SNAPSHOT");
+      }
+      assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+      Thread.sleep(200);
+      assertThat(refreshed).containsExactly(new JavadocKey("paper", "1.21"));
+    } finally {
+      service.shutdown();
+    }
+  }
+
+  @Test
+  void leasedVersionIsTriedAgain() throws Exception {
+    final AtomicInteger attempts = new AtomicInteger();
+    final CountDownLatch latch = new CountDownLatch(3);
+    final WebhookService service = new WebhookService(new EndpointService(CONFIGURATION), Duration.ofMillis(10), Duration.ofMillis(50), key -> {
+      latch.countDown();
+      return attempts.incrementAndGet() < 3 ? JavadocService.Refresh.LEASED : JavadocService.Refresh.REFRESHED;
+    });
+    try {
+      service.published("io.papermc.paper", "paper-api", "1.21.1-R0.1-SNAPSHOT");
+      assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+      Thread.sleep(200);
+      assertThat(attempts).hasValue(3);
+    } finally {
+      service.shutdown();
+    }
+  }
+
+  private static AppConfiguration.EndpointConfiguration.Version version(final String name, final String version) {
+    return new AppConfiguration.EndpointConfiguration.Version(name, null, URI.create("https://repo.papermc.io/repository/maven-public/"), "io.papermc.paper", "paper-api", version, AppConfiguration.EndpointConfiguration.Version.Type.MAVEN);
+  }
+}
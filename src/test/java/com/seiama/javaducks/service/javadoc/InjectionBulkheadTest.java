@@ -0,0 +1,57 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc;
+
+import com.seiama.javaducks.configuration.properties.ServingConfiguration;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InjectionBulkheadTest {
+
+  @Test
+  void limitShrinksOnSlowInjectionsAndRecovers() {
+    final InjectionBulkhead bulkhead = new InjectionBulkhead(new ServingConfiguration.InjectionBulkhead(
+      true, 4, 2, 5, Duration.ofMillis(50), Duration.ofSeconds(1), ServingConfiguration.InjectionBulkhead.Overload.REJECT
+    ), null);
+
+    for (int i = 0; i < 4; i++) {
+      assertThat(bulkhead.tryAcquire()).isTrue();
+    }
+    assertThat(bulkhead.tryAcquire()).isFalse();
+
+    final long slow = System.nanoTime() - Duration.ofSeconds(1).toNanos();
+    for (int i = 0; i < 4; i++) {
+      bulkhead.release(slow);
+    }
+    assertThat(bulkhead.limit()).isEqualTo(2);
+
+    for (int i = 0; i < 50; i++) {
+      assertThat(bulkhead.tryAcquire()).isTrue();
+      bulkhead.release(System.nanoTime());
+    }
+    assertThat(bulkhead.limit()).isEqualTo(5);
+  }
+}
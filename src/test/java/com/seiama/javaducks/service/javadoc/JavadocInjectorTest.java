@@ -0,0 +1,100 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc;
+
+import com.seiama.javaducks.configuration.properties.ServingConfiguration;
+import com.seiama.javaducks.service.javadoc.injection.Injection;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JavadocInjectorTest {
+  private static final JavadocKey KEY = new JavadocKey("paper", "26.1");
+
+  @Test
+  void slowClientDoesNotHoldAnInjectionSlot() throws Exception {
+    final Path file = Files.writeString(Files.createTempDirectory("javaducks-injector").resolve("index.html"), "<html>\n</html>");
+    final InjectionBulkhead bulkhead = new InjectionBulkhead(new ServingConfiguration.InjectionBulkhead(
+      true, 1, 1, 1, Duration.ofMillis(250), Duration.ofSeconds(1), ServingConfiguration.InjectionBulkhead.Overload.REJECT
+    ), null);
+    final Injection quack = new Injection() {
+      @Override
+      public boolean canInject(final Path file, final JavadocKey key) {
+        return true;
+      }
+
+      @Override
+      public String inject(final String line, final Path file, final JavadocKey key) {
+        return line.replace("<html>", "<html><!-- quack -->");
+      }
+    };
+    final JavadocInjector injector = new JavadocInjector(List.of(quack), bulkhead);
+    final CountDownLatch writing = new CountDownLatch(1);
+    final CountDownLatch client = new CountDownLatch(1);
+    final StringBuilder received = new StringBuilder();
+    final OutputStream slow = new OutputStream() {
+      @Override
+      public void write(final int b) throws IOException {
+        this.write(new byte[] {(byte) b}, 0, 1);
+      }
+
+      @Override
+      public void write(final byte[] b, final int off, final int len) throws IOException {
+        writing.countDown();
+        try {
+          client.await();
+        } catch (final InterruptedException e) {
+          throw new IOException(e);
+        }
+        received.append(new String(b, off, len, StandardCharsets.UTF_8));
+      }
+    };
+
+    final CompletableFuture<Void> transfer = CompletableFuture.runAsync(() -> {
+      try {
+        injector.transferInjected(file, KEY, List.of(quack), slow);
+      } catch (final IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+    // the only slot is free again while the client is still reading
+    assertThat(bulkhead.tryAcquire()).isTrue();
+    bulkhead.release(System.nanoTime());
+    client.countDown();
+    transfer.get(5, TimeUnit.SECONDS);
+
+    assertThat(received.toString()).isEqualTo("<html><!-- quack -->\n</html>");
+  }
+}
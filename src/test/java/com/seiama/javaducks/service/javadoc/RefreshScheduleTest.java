@@ -0,0 +1,77 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc;
+
+import com.seiama.javaducks.configuration.properties.UpstreamConfiguration;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RefreshScheduleTest {
+  private static final JavadocKey KEY = new JavadocKey("paper", "1.21");
+  private static final Instant NOW = Instant.parse("2024-06-01T00:00:00Z");
+
+  private final RefreshSchedule schedule = new RefreshSchedule(new UpstreamConfiguration.Schedule(Duration.ofMinutes(5), Duration.ofMinutes(20), Duration.ofMinutes(60), 0));
+
+  @Test
+  void unknownVersionsAreDue() {
+    assertThat(this.schedule.due(KEY, NOW)).isTrue();
+  }
+
+  @Test
+  void quietVersionsBackOffUpToTheMaximum() {
+    assertThat(this.schedule.checked(KEY, NOW, false)).isEqualTo(NOW.plus(Duration.ofMinutes(30)));
+    assertThat(this.schedule.due(KEY, NOW.plus(Duration.ofMinutes(29)))).isFalse();
+    assertThat(this.schedule.checked(KEY, NOW, false)).isEqualTo(NOW.plus(Duration.ofMinutes(45)));
+    assertThat(this.schedule.checked(KEY, NOW, false)).isEqualTo(NOW.plus(Duration.ofMinutes(60)));
+  }
+
+  @Test
+  void changingVersionsAreCheckedMoreOften() {
+    this.schedule.changed(KEY, NOW);
+    assertThat(this.schedule.checked(KEY, NOW, false)).isEqualTo(NOW.plus(Duration.ofMinutes(10)));
+    this.schedule.changed(KEY, NOW);
+    assertThat(this.schedule.checked(KEY, NOW, false)).isEqualTo(NOW.plus(Duration.ofMinutes(5)));
+    this.schedule.changed(KEY, NOW);
+    assertThat(this.schedule.checked(KEY, NOW, false)).isEqualTo(NOW.plus(Duration.ofMinutes(5)));
+    assertThat(this.schedule.checks().get(KEY).lastChange()).isEqualTo(NOW);
+  }
+
+  @Test
+  void failedChecksRetrySoonWithoutBackingOff() {
+    assertThat(this.schedule.checked(KEY, NOW, false)).isEqualTo(NOW.plus(Duration.ofMinutes(30)));
+    for (int i = 0; i < 5; i++) {
+      assertThat(this.schedule.failed(KEY, NOW)).isEqualTo(NOW.plus(Duration.ofMinutes(5)));
+    }
+    assertThat(this.schedule.checks().get(KEY).interval()).isEqualTo(Duration.ofMinutes(30));
+    assertThat(this.schedule.checked(KEY, NOW, false)).isEqualTo(NOW.plus(Duration.ofMinutes(45)));
+  }
+
+  @Test
+  void dormantVersionsWaitTheMaximum() {
+    assertThat(this.schedule.checked(KEY, NOW, true)).isEqualTo(NOW.plus(Duration.ofMinutes(60)));
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.fulltext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FullTextSegmentTest {
+
+  @Test
+  void indexesDocCommentBodies() throws Exception {
+    final Path root = Files.createTempDirectory("javaducks-fulltext");
+    final Path entity = Files.createDirectories(root.resolve("org/bukkit/entity"));
+    Files.writeString(entity.resolve("Player.html"), page("Player", "Represents a player, connected or not. The player can teleport."));
+    Files.writeString(entity.resolve("Entity.html"), page("Entity", "Represents a base entity in the world. Entities can <b>teleport</b> too."));
+    Files.writeString(entity.resolve("package-summary.html"), page("org.bukkit.entity", "Interfaces for non-voxel objects."));
+    Files.writeString(entity.resolve("package-tree.html"), page("Hierarchy", "Represents nothing we want."));
+    Files.createDirectories(entity.resolve("class-use"));
+    Files.writeString(entity.resolve("class-use/Player.html"), page("Uses", "Represents uses."));
+
+    final Path segmentFile = root.resolve("segment.fulltext");
+    assertThat(FullTextIndexer.index(root, segmentFile)).isEqualTo(3);
+    final FullTextSegment segment = FullTextSegment.open(segmentFile);
+
+    final List<FullTextResult> teleport = segment.search("Teleport", 10);
+    assertThat(teleport).extracting(FullTextResult::path).containsExactlyInAnyOrder("org/bukkit/entity/Player.html", "org/bukkit/entity/Entity.html");
+
+    final List<FullTextResult> player = segment.search("connected player", 10);
+    assertThat(player).extracting(FullTextResult::title).containsExactly("Player");
+
+    assertThat(segment.search("voxel", 10)).extracting(FullTextResult::path).containsExactly("org/bukkit/entity/package-summary.html");
+    assertThat(segment.search("missing", 10)).isEmpty();
+    // markup is not indexed
+    assertThat(segment.search("div", 10)).isEmpty();
+  }
+
+  private static String page(final String title, final String comment) {
+    return """
+      <html><head><title>%s</title></head>
+      <body><div class="block">%s<div class="inner">nested</div></div>
+      <div class="other">ignored text</div></body></html>
+      """.formatted(title, comment);
+  }
+}
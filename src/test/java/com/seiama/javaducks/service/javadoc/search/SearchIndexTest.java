@@ -0,0 +1,92 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.search;
+
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchIndexTest {
+
+  @Test
+  void searchRanksExactTypeBeforeMembers() throws Exception {
+    final SearchIndex index = load();
+
+    final List<SearchResult> results = index.search("player", 10);
+
+    assertThat(results).isNotEmpty();
+    assertThat(results.get(0).kind()).isEqualTo(SearchResult.Kind.TYPE);
+    assertThat(results.get(0).url()).isEqualTo("org/bukkit/entity/Player.html");
+  }
+
+  @Test
+  void searchMatchesMembersByQualifiedPrefix() throws Exception {
+    final SearchIndex index = load();
+
+    final List<SearchResult> results = index.search("Player.getN", 10);
+
+    assertThat(results).extracting(SearchResult::label).containsExactly("getName()");
+    assertThat(results.get(0).url()).isEqualTo("org/bukkit/entity/Player.html#getName()");
+  }
+
+  @Test
+  void searchSkipsSummaryLinksAndRespectsLimit() throws Exception {
+    final SearchIndex index = load();
+
+    assertThat(index.search("All", 10)).isEmpty();
+    assertThat(index.search("org", 1)).hasSize(1);
+    assertThat(index.search("  ", 10)).isEmpty();
+  }
+
+  @Test
+  void symbolsUseQualifiedNames() throws Exception {
+    assertThat(load().symbols()).contains(
+      "org.bukkit",
+      "org.bukkit.entity.Player",
+      "org.bukkit.entity.Player#getName()"
+    );
+  }
+
+  private static SearchIndex load() throws Exception {
+    final Path jar = Files.createTempDirectory("javaducks-search").resolve("javadoc.jar");
+    try (final FileSystem fs = FileSystems.newFileSystem(URI.create("jar:" + jar.toUri()), Map.of("create", "true"))) {
+      Files.writeString(fs.getPath("package-search-index.js"), """
+        packageSearchIndex = [{"l":"All Packages","u":"allpackages-index.html"},{"l":"org.bukkit"},{"l":"org.bukkit.entity"}];updateSearchResults();""");
+      Files.writeString(fs.getPath("type-search-index.js"), """
+        typeSearchIndex = [{"l":"All Classes and Interfaces","u":"allclasses-index.html"},{"p":"org.bukkit.entity","l":"Player"},{"p":"org.bukkit.entity","l":"PlayerProfile"}];updateSearchResults();""");
+      Files.writeString(fs.getPath("member-search-index.js"), """
+        memberSearchIndex = [{"p":"org.bukkit.entity","c":"Player","l":"getName()"},{"p":"org.bukkit.entity","c":"Player","l":"playSound(Location, Sound, float, float)","u":"playSound(org.bukkit.Location,org.bukkit.Sound,float,float)"}];updateSearchResults();""");
+    }
+    try (final FileSystem fs = FileSystems.newFileSystem(jar)) {
+      return SearchIndex.load(fs.getPath("/"));
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.search;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SymbolIndexTest {
+  private static final List<String> ORDER = List.of("1.20.4", "1.20.6", "1.21");
+
+  @Test
+  void versionsFollowConfiguredOrder() {
+    final SymbolIndex index = new SymbolIndex();
+    index.update("paper", "1.21", Set.of("org.bukkit.entity.Player", "org.bukkit.entity.Player#getName()"));
+    index.update("paper", "1.20.4", Set.of("org.bukkit.entity.Player"));
+
+    assertThat(index.versions("paper", "org.bukkit.entity.Player", ORDER)).containsExactly("1.20.4", "1.21");
+    assertThat(index.versions("paper", "org.bukkit.entity.Player#getName()", ORDER)).containsExactly("1.21");
+    assertThat(index.versions("paper", "org.bukkit.Missing", ORDER)).isNull();
+    assertThat(index.versions("paperlib", "org.bukkit.entity.Player", ORDER)).isNull();
+  }
+
+  @Test
+  void updateReplacesSymbolsOfOneVersion() {
+    final SymbolIndex index = new SymbolIndex();
+    index.update("paper", "1.20.6", Set.of("a.A", "a.B"));
+    index.update("paper", "1.21", Set.of("a.A", "a.B"));
+
+    index.update("paper", "1.21", Set.of("a.A", "a.C"));
+
+    assertThat(index.versions("paper", "a.A", ORDER)).containsExactly("1.20.6", "1.21");
+    assertThat(index.versions("paper", "a.B", ORDER)).containsExactly("1.20.6");
+    assertThat(index.versions("paper", "a.C", ORDER)).containsExactly("1.21");
+
+    index.remove("paper", "1.20.6");
+
+    assertThat(index.versions("paper", "a.B", ORDER)).isNull();
+    assertThat(index.size("paper")).isEqualTo(2);
+  }
+
+  @Test
+  void removedVersionsFreeTheirSlot() {
+    final SymbolIndex index = new SymbolIndex();
+    index.update("paper", "1.20.4", Set.of("a.A"));
+    index.update("paper", "1.20.6", Set.of("a.A", "a.B"));
+
+    index.remove("paper", "1.20.4");
+    // takes the slot 1.20.4 had, without inheriting any of its symbols
+    index.update("paper", "1.21", Set.of("a.B"));
+
+    assertThat(index.versions("paper", "a.A", ORDER)).containsExactly("1.20.6");
+    assertThat(index.versions("paper", "a.B", ORDER)).containsExactly("1.20.6", "1.21");
+    assertThat(index.versions("paper", "a.A", List.of("1.20.4"))).isEmpty();
+  }
+}
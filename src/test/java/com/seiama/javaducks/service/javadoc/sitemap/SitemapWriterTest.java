@@ -0,0 +1,64 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.sitemap;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SitemapWriterTest {
+
+  @Test
+  void urlsetsAreChunkedAndEscaped() throws Exception {
+    final List<String> locations = IntStream.range(0, 5).mapToObj(i -> "https://jd.papermc.io/paper/1.21/Page" + i + ".html?a=1&b=2").toList();
+
+    final List<byte[]> chunks = SitemapWriter.urlsets(locations, 2);
+
+    assertThat(chunks).hasSize(3);
+    final String last = gunzip(chunks.get(2));
+    assertThat(last).contains("<loc>https://jd.papermc.io/paper/1.21/Page4.html?a=1&amp;b=2</loc>");
+    assertThat(last).doesNotContain("Page3");
+  }
+
+  @Test
+  void indexListsSitemapsWithLastModified() {
+    final String index = new String(SitemapWriter.index(List.of(
+      new SitemapWriter.Sitemap("https://jd.papermc.io/sitemap-paper-1.xml.gz", Instant.parse("2024-06-01T00:00:00Z"))
+    )), StandardCharsets.UTF_8);
+
+    assertThat(index).contains("<sitemap><loc>https://jd.papermc.io/sitemap-paper-1.xml.gz</loc><lastmod>2024-06-01T00:00:00Z</lastmod></sitemap>");
+  }
+
+  private static String gunzip(final byte[] bytes) throws Exception {
+    try (final GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}
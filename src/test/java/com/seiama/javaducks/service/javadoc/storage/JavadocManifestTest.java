@@ -0,0 +1,91 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.storage;
+
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JavadocManifestTest {
+
+  @Test
+  void buildSharesAssetsAndKeepsPagesInTheJar() throws Exception {
+    final Path directory = Files.createTempDirectory("javaducks-manifest");
+    final BlobStore blobs = new BlobStore(directory.resolve(".blobs"));
+    final Path first = jar(directory.resolve("1.20.6.jar"), "<html><head><link rel=\"stylesheet\" href=\"stylesheet.css\"><script src=\"script.js\"></script></head><body><script src=\"late.js\"></script></body></html>");
+    final Path second = jar(directory.resolve("1.21.jar"), "<html>1.21</html>");
+
+    final JavadocManifest manifest = JavadocManifest.build(first, blobs);
+    manifest.write(JavadocManifest.pathFor(first));
+    final JavadocManifest other = JavadocManifest.build(second, blobs);
+
+    assertThat(manifest.asset("index.html")).isNull();
+    assertThat(manifest.asset("/script.js")).isNotNull();
+    assertThat(other.asset("script.js").blob()).isSameAs(manifest.asset("script.js").blob());
+    assertThat(manifest.asset("script.js").relocatable()).isTrue();
+    assertThat(manifest.asset("stylesheet.css").relocatable()).isTrue();
+    assertThat(manifest.asset("jquery-ui.css").relocatable()).isFalse();
+
+    final JavadocManifest read = JavadocManifest.read(directory.resolve("1.20.6.manifest"), blobs);
+    assertThat(read).isNotNull();
+    assertThat(read.asset("jquery-ui.css")).isEqualTo(manifest.asset("jquery-ui.css"));
+    assertThat(Files.readString(read.asset("script.js").blob())).isEqualTo("function loadScripts() {}");
+    assertThat(read.preloads()).containsExactly("stylesheet.css", "script.js");
+    assertThat(other.preloads()).isEmpty();
+  }
+
+  @Test
+  void olderFormatsAreNotReadAsEmpty() throws Exception {
+    final Path directory = Files.createTempDirectory("javaducks-manifest-legacy");
+    final BlobStore blobs = new BlobStore(directory.resolve(".blobs"));
+    // hash and path, as the first blob store release wrote them
+    final Path legacy = Files.writeString(directory.resolve("1.20.6.manifest"), "0a1b2c\tscript.js\n0d1e2f\tstylesheet.css\n");
+
+    assertThat(JavadocManifest.read(legacy, blobs)).isNull();
+    assertThat(JavadocManifest.current(legacy)).isFalse();
+    assertThat(JavadocManifest.current(directory.resolve("1.21.manifest"))).isFalse();
+
+    final Path jar = jar(directory.resolve("1.20.6.jar"), "<html></html>");
+    JavadocManifest.build(jar, blobs).write(legacy);
+
+    assertThat(JavadocManifest.current(legacy)).isTrue();
+    assertThat(JavadocManifest.read(legacy, blobs).assets()).hasSize(3);
+  }
+
+  private static Path jar(final Path jar, final String index) throws Exception {
+    try (final FileSystem fs = FileSystems.newFileSystem(URI.create("jar:" + jar.toUri()), Map.of("create", "true"))) {
+      Files.writeString(fs.getPath("index.html"), index);
+      Files.writeString(fs.getPath("script.js"), "function loadScripts() {}");
+      Files.writeString(fs.getPath("stylesheet.css"), "body { color: black; }");
+      Files.writeString(fs.getPath("jquery-ui.css"), ".ui-icon { background-image: url(\"images/ui-icons.png\"); }");
+    }
+    return jar;
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.storage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RefreshLeasesTest {
+
+  @Test
+  void leaseIsHeldByOneNodeAndTakenOncePerCycle() throws Exception {
+    final Path jar = Files.createTempDirectory("javaducks-lease").resolve("1.21.jar");
+    final RefreshLeases leases = new RefreshLeases(Duration.ofMinutes(14));
+
+    try (final RefreshLeases.Lease lease = leases.acquire(jar)) {
+      assertThat(lease).isNotNull();
+      assertThat(leases.acquire(jar)).isNull();
+    }
+    assertThat(leases.acquire(jar)).isNull();
+  }
+
+  @Test
+  void leaseIsTakenNowWithinTheCycleButNotWhileHeld() throws Exception {
+    final Path jar = Files.createTempDirectory("javaducks-lease").resolve("1.21.jar");
+    final RefreshLeases leases = new RefreshLeases(Duration.ofMinutes(14));
+
+    try (final RefreshLeases.Lease lease = leases.acquire(jar)) {
+      assertThat(lease).isNotNull();
+      assertThat(leases.acquireNow(jar)).isNull();
+    }
+    try (final RefreshLeases.Lease lease = leases.acquireNow(jar)) {
+      assertThat(lease).isNotNull();
+    }
+  }
+
+  @Test
+  void expiredLeaseIsTakenAgain() throws Exception {
+    final Path jar = Files.createTempDirectory("javaducks-lease").resolve("1.21.jar");
+    final RefreshLeases leases = new RefreshLeases(Duration.ZERO);
+
+    try (final RefreshLeases.Lease lease = leases.acquire(jar)) {
+      assertThat(lease).isNotNull();
+    }
+    try (final RefreshLeases.Lease lease = leases.acquire(jar)) {
+      assertThat(lease).isNotNull();
+    }
+  }
+}
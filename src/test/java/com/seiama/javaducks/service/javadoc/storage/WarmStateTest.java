@@ -0,0 +1,93 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.storage;
+
+import com.seiama.javaducks.service.javadoc.HotPaths;
+import com.seiama.javaducks.service.javadoc.JavadocKey;
+import com.seiama.javaducks.service.javadoc.RefreshSchedule;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WarmStateTest {
+  private static final JavadocKey KEY = new JavadocKey("paper", "1.21");
+
+  @Test
+  void writeAndReadRoundTrip() throws Exception {
+    final Path file = Files.createTempDirectory("javaducks-warm-state").resolve(".warm-state");
+    final HotPaths hotPaths = new HotPaths(10);
+    for (int i = 0; i < 3; i++) {
+      hotPaths.record(KEY, "org/bukkit/Bukkit.html");
+    }
+    hotPaths.record(KEY, "index.html");
+    final Map<JavadocKey, RefreshSchedule.Check> checks = Map.of(
+      KEY, new RefreshSchedule.Check(Instant.ofEpochMilli(1_000), Duration.ofMinutes(15), Instant.ofEpochMilli(500)),
+      new JavadocKey("paper", "1.20"), new RefreshSchedule.Check(Instant.ofEpochMilli(2_000), Duration.ofHours(6), null)
+    );
+
+    new WarmState(hotPaths.top(10), checks).write(file);
+    final WarmState state = WarmState.read(file);
+
+    assertThat(state.pages()).containsExactly(new HotPaths.Hit(KEY, "org/bukkit/Bukkit.html", 3), new HotPaths.Hit(KEY, "index.html", 1));
+    assertThat(state.checks()).isEqualTo(checks);
+  }
+
+  @Test
+  void writeReplacesTheFileWithoutLeavingTemporaryFiles() throws Exception {
+    final Path directory = Files.createTempDirectory("javaducks-warm-state");
+    final Path file = directory.resolve(".warm-pages");
+
+    new WarmState(List.of(new HotPaths.Hit(KEY, "index.html", 1)), Map.of()).write(file);
+    WarmState.EMPTY.write(file);
+
+    assertThat(WarmState.read(file)).isEqualTo(WarmState.EMPTY);
+    try (final Stream<Path> files = Files.list(directory)) {
+      assertThat(files).containsExactly(file);
+    }
+  }
+
+  @Test
+  void missingFileIsEmpty() throws Exception {
+    assertThat(WarmState.read(Files.createTempDirectory("javaducks-warm-state").resolve(".warm-state"))).isEqualTo(WarmState.EMPTY);
+  }
+
+  @Test
+  void decayDropsPagesThatWereRequestedOnce() {
+    final HotPaths hotPaths = new HotPaths(10);
+    hotPaths.record(KEY, "index.html");
+    hotPaths.record(KEY, "allclasses-index.html");
+    hotPaths.record(KEY, "allclasses-index.html");
+
+    hotPaths.decay();
+
+    assertThat(hotPaths.top(10)).containsExactly(new HotPaths.Hit(KEY, "allclasses-index.html", 1));
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.service.javadoc.upstream;
+
+import com.seiama.javaducks.configuration.properties.UpstreamConfiguration;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MirrorsTest {
+  private static final URI JAR = URI.create("https://repo.test/maven/io/papermc/paper-api.jar");
+
+  @Test
+  void fasterHealthyMirrorsComeFirst() {
+    final Mirrors mirrors = new Mirrors(List.of(new UpstreamConfiguration.Mirror(URI.create("https://repo.test/maven"), List.of(URI.create("https://a.test/"), URI.create("https://b.test/")))));
+
+    mirrors.latency(URI.create("https://repo.test/maven/x"), 300);
+    mirrors.latency(URI.create("https://a.test/x"), 100);
+    mirrors.latency(URI.create("https://b.test/x"), 200);
+    assertThat(mirrors.candidates(JAR)).containsExactly(
+      URI.create("https://a.test/io/papermc/paper-api.jar"),
+      URI.create("https://b.test/io/papermc/paper-api.jar"),
+      URI.create("https://repo.test/maven/io/papermc/paper-api.jar")
+    );
+
+    for (int i = 0; i < 3; i++) {
+      mirrors.failure(URI.create("https://a.test/x"));
+    }
+    assertThat(mirrors.candidates(JAR)).last().isEqualTo(URI.create("https://a.test/io/papermc/paper-api.jar"));
+  }
+
+  @Test
+  void hedgeDelayFollowsThePercentile() {
+    final Mirrors mirrors = new Mirrors(List.of(new UpstreamConfiguration.Mirror(URI.create("https://repo.test/"), List.of())));
+    for (int i = 1; i <= 10; i++) {
+      mirrors.latency(URI.create("https://repo.test/x"), Duration.ofMillis(i * 100L).toNanos());
+    }
+
+    assertThat(mirrors.hedgeDelay(JAR, 0.9, Duration.ofMillis(50))).isEqualTo(Duration.ofMillis(900));
+    assertThat(mirrors.hedgeDelay(URI.create("https://elsewhere.test/x"), 0.9, Duration.ofMillis(50))).isEqualTo(Duration.ofMillis(50));
+    assertThat(mirrors.hedgeDelay(JAR, 0, Duration.ofMillis(50))).isEqualTo(Duration.ofMillis(100));
+  }
+
+  @Test
+  void urisOutsideAnyMirrorGroupAreLeftAlone() {
+    final Mirrors mirrors = new Mirrors(List.of());
+
+    assertThat(mirrors.candidates(JAR)).containsExactly(JAR);
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.util.http;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdleTimeoutHttpClientTest {
+  private static final Duration TIMEOUT = Duration.ofMillis(300);
+  private ServerSocket server;
+  private JdkClientHttpRequestFactory factory;
+
+  @BeforeEach
+  void setup() throws IOException {
+    this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    final Thread acceptor = new Thread(() -> {
+      while (!this.server.isClosed()) {
+        try {
+          final Socket socket = this.server.accept();
+          final Thread handler = new Thread(() -> serve(socket));
+          handler.setDaemon(true);
+          handler.start();
+        } catch (final IOException e) {
+          // stopped
+        }
+      }
+    });
+    acceptor.setDaemon(true);
+    acceptor.start();
+    this.factory = new JdkClientHttpRequestFactory(new IdleTimeoutHttpClient(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build(), TIMEOUT));
+  }
+
+  @AfterEach
+  void teardown() throws IOException {
+    this.server.close();
+  }
+
+  // a repository that sends a steady trickle, stops halfway or never answers
+  private static void serve(final Socket socket) {
+    try (socket) {
+      final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+      final String path = reader.readLine().split(" ")[1];
+      while (!reader.readLine().isEmpty()) {
+        // skip the headers
+      }
+      final OutputStream output = socket.getOutputStream();
+      if (path.equals("/silent.jar")) {
+        sleep(TIMEOUT.multipliedBy(10));
+        return;
+      }
+      output.write("HTTP/1.1 200 OK\r\nContent-Length: 800\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+      for (int i = 0; i < 8; i++) {
+        output.write(new byte[100]);
+        output.flush();
+        sleep(path.equals("/stalled.jar") ? TIMEOUT.multipliedBy(10) : TIMEOUT.dividedBy(3));
+      }
+    } catch (final IOException e) {
+      // the client gave up
+    }
+  }
+
+  @Test
+  void downloadThatKeepsMovingOutlastsTheTimeout() throws IOException {
+    final long start = System.nanoTime();
+    try (final ClientHttpResponse response = this.factory.createRequest(this.uri("/steady.jar"), HttpMethod.GET).execute()) {
+      assertThat(response.getBody().readAllBytes()).hasSize(800);
+    }
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThan(TIMEOUT.multipliedBy(2));
+  }
+
+  @Test
+  void stalledBodyTimesOut() throws IOException {
+    try (final ClientHttpResponse response = this.factory.createRequest(this.uri("/stalled.jar"), HttpMethod.GET).execute()) {
+      final InputStream body = response.getBody();
+      final long start = System.nanoTime();
+      assertThatThrownBy(body::readAllBytes).isInstanceOf(HttpTimeoutException.class);
+      assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(TIMEOUT.multipliedBy(5));
+    }
+  }
+
+  @Test
+  void missingHeadersTimeOut() {
+    assertThatThrownBy(() -> this.factory.createRequest(this.uri("/silent.jar"), HttpMethod.GET).execute())
+      .isInstanceOf(HttpTimeoutException.class);
+  }
+
+  private URI uri(final String path) {
+    return URI.create("http://" + this.server.getInetAddress().getHostAddress() + ":" + this.server.getLocalPort() + path);
+  }
+
+  private static void sleep(final Duration duration) {
+    try {
+      Thread.sleep(duration.toMillis());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
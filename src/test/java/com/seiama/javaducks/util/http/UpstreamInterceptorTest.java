@@ -0,0 +1,69 @@
+/*
+ * This file is part of javaducks, licensed under the MIT License.
+ *
+ * Copyright (c) 2023-2024 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.javaducks.util.http;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class UpstreamInterceptorTest {
+
+  @Test
+  void metadataIsRequestedCompressedAndTimedPerHost() throws Exception {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final RestClient.Builder builder = RestClient.builder().requestInterceptor(new UpstreamInterceptor(registry));
+    final MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+    final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (final GZIPOutputStream output = new GZIPOutputStream(compressed)) {
+      output.write("<metadata/>".getBytes(StandardCharsets.UTF_8));
+    }
+
+    server.expect(requestTo("http://repo.test/maven-metadata.xml"))
+      .andExpect(header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+      .andRespond(withSuccess(compressed.toByteArray(), MediaType.APPLICATION_XML).header(HttpHeaders.CONTENT_ENCODING, "gzip"));
+    server.expect(requestTo("http://repo.test/javadoc.jar"))
+      .andExpect(headerDoesNotExist(HttpHeaders.ACCEPT_ENCODING))
+      .andRespond(withSuccess("jar", MediaType.APPLICATION_OCTET_STREAM));
+
+    final RestClient client = builder.build();
+    assertThat(client.get().uri("http://repo.test/maven-metadata.xml").retrieve().body(String.class)).isEqualTo("<metadata/>");
+    assertThat(client.get().uri("http://repo.test/javadoc.jar").retrieve().body(String.class)).isEqualTo("jar");
+
+    assertThat(registry.get("javaducks.upstream.requests").tag("host", "repo.test").tag("kind", "metadata").tag("outcome", "SUCCESS").timer().count()).isEqualTo(1);
+    assertThat(registry.get("javaducks.upstream.requests").tag("host", "repo.test").tag("kind", "jar").timer().count()).isEqualTo(1);
+    server.verify();
+  }
+}